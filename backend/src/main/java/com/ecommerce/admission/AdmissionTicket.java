@@ -0,0 +1,44 @@
+package com.ecommerce.admission;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * A shopper's place in the checkout queue. Tickets are numbered in issue order; once admitted,
+ * the ticket lets one order through until {@code admittedUntil}.
+ */
+@Getter
+public class AdmissionTicket {
+
+    public enum Status {
+        WAITING, ADMITTED, EXPIRED
+    }
+
+    private final String ticketId;
+    private final String firebaseUid;
+    private final long sequence;
+    private volatile Status status = Status.WAITING;
+    private volatile Instant lastSeen;
+    private volatile Instant admittedUntil;
+
+    AdmissionTicket(String ticketId, String firebaseUid, long sequence, Instant issuedAt) {
+        this.ticketId = ticketId;
+        this.firebaseUid = firebaseUid;
+        this.sequence = sequence;
+        this.lastSeen = issuedAt;
+    }
+
+    void touch(Instant now) {
+        lastSeen = now;
+    }
+
+    void admit(Instant until) {
+        admittedUntil = until;
+        status = Status.ADMITTED;
+    }
+
+    void expire() {
+        status = Status.EXPIRED;
+    }
+}
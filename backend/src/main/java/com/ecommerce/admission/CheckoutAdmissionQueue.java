@@ -0,0 +1,279 @@
+package com.ecommerce.admission;
+
+import com.ecommerce.dto.response.AdmissionTicketResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control in front of order placement. At most
+ * {@code app.admission.max-concurrent-checkouts} orders are placed at once, a little under the
+ * connection pool size so checkouts keep the pool busy without queueing on it. While nobody is
+ * waiting and a slot is free, an order goes straight through. Otherwise the shopper gets a
+ * ticket, and waiting tickets are admitted in issue order at {@code app.admission.rate} per
+ * second. Tickets that are no longer polled or streamed are dropped after
+ * {@code app.admission.abandon-after}.
+ */
+@Component
+@Slf4j
+public class CheckoutAdmissionQueue {
+
+    private final int maxConcurrent;
+    private final double rate;
+    private final Duration admissionWindow;
+    private final Duration abandonAfter;
+    private final Duration permitWait;
+
+    private final Semaphore permits;
+    private final Queue<AdmissionTicket> waiting = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final Map<String, AdmissionTicket> ticketsById = new ConcurrentHashMap<>();
+    private final Map<String, AdmissionTicket> ticketsByUser = new ConcurrentHashMap<>();
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Counter enteredDirectly;
+    private final Counter enteredWithTicket;
+    private final Counter queued;
+    private final Counter abandoned;
+
+    private long issued;
+    private volatile long admittedThrough;
+    // Touched only by the scheduler thread
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    public CheckoutAdmissionQueue(MeterRegistry meterRegistry,
+                                  @Value("${app.admission.max-concurrent-checkouts:16}") int maxConcurrent,
+                                  @Value("${app.admission.rate:50}") double rate,
+                                  @Value("${app.admission.admission-window:PT2M}") Duration admissionWindow,
+                                  @Value("${app.admission.abandon-after:PT30S}") Duration abandonAfter,
+                                  @Value("${app.admission.permit-wait:PT5S}") Duration permitWait) {
+        this.maxConcurrent = Math.max(maxConcurrent, 1);
+        this.rate = Math.max(rate, 0.1);
+        this.admissionWindow = admissionWindow;
+        this.abandonAfter = abandonAfter;
+        this.permitWait = permitWait;
+        this.permits = new Semaphore(this.maxConcurrent, true);
+
+        this.enteredDirectly = meterRegistry.counter("checkout.admission.entered", "path", "direct");
+        this.enteredWithTicket = meterRegistry.counter("checkout.admission.entered", "path", "ticket");
+        this.queued = meterRegistry.counter("checkout.admission.queued");
+        this.abandoned = meterRegistry.counter("checkout.admission.abandoned");
+        meterRegistry.gauge("checkout.admission.waiting", waitingCount);
+        meterRegistry.gauge("checkout.admission.in_flight", permits,
+                semaphore -> this.maxConcurrent - semaphore.availablePermits());
+    }
+
+    /**
+     * Takes a checkout slot for the shopper if they may place their order now: either nobody is
+     * queued and a slot is free, or they hold an admitted ticket. Every successful call must be
+     * paired with {@link #exit()}.
+     */
+    public boolean tryEnter(String firebaseUid, String ticketId) {
+        AdmissionTicket ticket = ticketId != null ? ticketsById.get(ticketId) : null;
+        if (ticket == null || !ticket.getFirebaseUid().equals(firebaseUid)) {
+            if (waitingCount.get() == 0 && permits.tryAcquire()) {
+                enteredDirectly.increment();
+                return true;
+            }
+            return false;
+        }
+
+        Instant now = Instant.now();
+        ticket.touch(now);
+        if (ticket.getStatus() != AdmissionTicket.Status.ADMITTED || now.isAfter(ticket.getAdmittedUntil())) {
+            return false;
+        }
+        try {
+            // Admitted shoppers wait briefly for a slot; the admission rate keeps this wait short
+            if (!permits.tryAcquire(permitWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        discard(ticket);
+        enteredWithTicket.increment();
+        return true;
+    }
+
+    public void exit() {
+        permits.release();
+    }
+
+    /**
+     * The shopper's ticket, issuing one at the back of the queue if they don't hold one yet.
+     */
+    public synchronized AdmissionTicketResponse issue(String firebaseUid) {
+        Instant now = Instant.now();
+        AdmissionTicket ticket = ticketsByUser.get(firebaseUid);
+        if (ticket == null) {
+            ticket = new AdmissionTicket(UUID.randomUUID().toString(), firebaseUid, ++issued, now);
+            ticketsById.put(ticket.getTicketId(), ticket);
+            ticketsByUser.put(firebaseUid, ticket);
+            waitingCount.incrementAndGet();
+            waiting.add(ticket);
+            queued.increment();
+        }
+        ticket.touch(now);
+        return describe(ticket);
+    }
+
+    // Polling a ticket keeps it alive
+    public Optional<AdmissionTicketResponse> getTicket(String ticketId) {
+        AdmissionTicket ticket = ticketsById.get(ticketId);
+        if (ticket == null) {
+            return Optional.empty();
+        }
+        ticket.touch(Instant.now());
+        return Optional.of(describe(ticket));
+    }
+
+    /**
+     * Streams the ticket's position until it is admitted or dropped. An open stream keeps the
+     * ticket alive.
+     */
+    public Optional<SseEmitter> subscribe(String ticketId) {
+        AdmissionTicket ticket = ticketsById.get(ticketId);
+        if (ticket == null) {
+            return Optional.empty();
+        }
+        SseEmitter emitter = new SseEmitter();
+        Subscriber subscriber = new Subscriber(emitter);
+        Subscriber previous = subscribers.put(ticketId, subscriber);
+        if (previous != null) {
+            previous.emitter.complete();
+        }
+        emitter.onCompletion(() -> subscribers.remove(ticketId, subscriber));
+        emitter.onTimeout(() -> subscribers.remove(ticketId, subscriber));
+        emitter.onError(e -> subscribers.remove(ticketId, subscriber));
+        push(ticketId, subscriber, ticket);
+        return Optional.of(emitter);
+    }
+
+    @Scheduled(fixedDelayString = "${app.admission.tick:PT0.2S}")
+    public void admit() {
+        Instant now = Instant.now();
+        long nanos = System.nanoTime();
+        // At most one second's worth of admissions builds up while the queue is empty
+        tokens = Math.min(tokens + rate * (nanos - lastRefillNanos) / 1e9, Math.max(rate, 1));
+        lastRefillNanos = nanos;
+
+        int admittedNow = 0;
+        while (tokens >= 1) {
+            AdmissionTicket ticket = waiting.poll();
+            if (ticket == null) {
+                break;
+            }
+            admittedThrough = ticket.getSequence();
+            if (ticket.getStatus() != AdmissionTicket.Status.WAITING) {
+                continue;
+            }
+            waitingCount.decrementAndGet();
+            if (isAbandoned(ticket, now)) {
+                discard(ticket);
+                abandoned.increment();
+                continue;
+            }
+            ticket.admit(now.plus(admissionWindow));
+            tokens -= 1;
+            admittedNow++;
+        }
+
+        subscribers.forEach((ticketId, subscriber) -> {
+            AdmissionTicket ticket = ticketsById.get(ticketId);
+            if (ticket != null) {
+                ticket.touch(now);
+            }
+            push(ticketId, subscriber, ticket);
+        });
+        sweep(now);
+        if (admittedNow > 0) {
+            log.debug("Admitted {} checkouts, {} waiting", admittedNow, waitingCount.get());
+        }
+    }
+
+    // Drops admitted tickets that weren't used in time and waiting tickets nobody is watching
+    private void sweep(Instant now) {
+        for (AdmissionTicket ticket : ticketsById.values()) {
+            boolean admittedAndLapsed = ticket.getStatus() == AdmissionTicket.Status.ADMITTED
+                    && now.isAfter(ticket.getAdmittedUntil());
+            boolean waitingAndAbandoned = ticket.getStatus() == AdmissionTicket.Status.WAITING
+                    && isAbandoned(ticket, now);
+            if (waitingAndAbandoned) {
+                waitingCount.decrementAndGet();
+                abandoned.increment();
+            }
+            if (admittedAndLapsed || waitingAndAbandoned) {
+                discard(ticket);
+            }
+        }
+    }
+
+    private boolean isAbandoned(AdmissionTicket ticket, Instant now) {
+        return now.isAfter(ticket.getLastSeen().plus(abandonAfter));
+    }
+
+    private void discard(AdmissionTicket ticket) {
+        ticket.expire();
+        ticketsById.remove(ticket.getTicketId(), ticket);
+        ticketsByUser.remove(ticket.getFirebaseUid(), ticket);
+    }
+
+    private AdmissionTicketResponse describe(AdmissionTicket ticket) {
+        if (ticket.getStatus() != AdmissionTicket.Status.WAITING) {
+            return AdmissionTicketResponse.fromTicket(ticket, 0, 0);
+        }
+        // Counts abandoned tickets still ahead, so it can only overstate the wait
+        long position = Math.max(ticket.getSequence() - admittedThrough, 1);
+        return AdmissionTicketResponse.fromTicket(ticket, position, (long) Math.ceil(position / rate));
+    }
+
+    private void push(String ticketId, Subscriber subscriber, AdmissionTicket ticket) {
+        try {
+            if (ticket == null) {
+                subscriber.emitter.complete();
+                return;
+            }
+            AdmissionTicketResponse response = describe(ticket);
+            if (response.getPosition() != subscriber.lastPosition || response.getStatus() != subscriber.lastStatus) {
+                subscriber.emitter.send(SseEmitter.event().name("ticket").data(response));
+                subscriber.lastPosition = response.getPosition();
+                subscriber.lastStatus = response.getStatus();
+            }
+            if (response.getStatus() != AdmissionTicket.Status.WAITING) {
+                subscriber.emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(ticketId, subscriber);
+        }
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private long lastPosition = -1;
+        private AdmissionTicket.Status lastStatus;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+}
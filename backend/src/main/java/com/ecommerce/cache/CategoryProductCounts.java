@@ -0,0 +1,115 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active product counts for every category, rolled up so a parent includes the products of
+ * all its subcategories. Loaded with one grouped aggregation at startup and then adjusted
+ * incrementally from the catalog membership carried by {@link ProductChangedEvent}.
+ */
+@Component
+@Slf4j
+public class CategoryProductCounts {
+
+    // Guards against a parent cycle introduced by a bad admin edit
+    private static final int MAX_DEPTH = 32;
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Map<Long, Long> directCounts = new HashMap<>();
+    private Map<Long, Long> parentIds = new HashMap<>();
+    private volatile Map<Long, Long> totals = new ConcurrentHashMap<>();
+
+    public CategoryProductCounts(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public long getCount(Long categoryId) {
+        return totals.getOrDefault(categoryId, 0L);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        long start = System.currentTimeMillis();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            directCounts.clear();
+            categoryRepository.countActiveProductsPerCategory()
+                    .forEach(row -> directCounts.put(row.getCategoryId(), row.getProductCount()));
+            parentIds = loadParentIds();
+        });
+        recomputeTotals();
+        log.info("Loaded product counts for {} categories in {} ms",
+                directCounts.size(), System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (event.isPreviouslyActive() && event.getPreviousCategoryId() != null) {
+            apply(event.getPreviousCategoryId(), -1);
+        }
+        if (event.isActive() && event.getCategoryId() != null) {
+            apply(event.getCategoryId(), 1);
+        }
+    }
+
+    // One grouped aggregation is cheaper than resolving the category of every imported product
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        load();
+    }
+
+    // A category may have been moved under another parent, so the roll-up is redone from the direct counts
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        parentIds = readOnlyTransaction.execute(status -> loadParentIds());
+        recomputeTotals();
+    }
+
+    private void apply(Long categoryId, long delta) {
+        directCounts.merge(categoryId, delta, Long::sum);
+        Long current = categoryId;
+        for (int depth = 0; current != null && depth < MAX_DEPTH; depth++) {
+            totals.merge(current, delta, Long::sum);
+            current = parentIds.get(current);
+        }
+    }
+
+    private void recomputeTotals() {
+        Map<Long, Long> recomputed = new ConcurrentHashMap<>();
+        directCounts.forEach((categoryId, count) -> {
+            Long current = categoryId;
+            for (int depth = 0; current != null && depth < MAX_DEPTH; depth++) {
+                recomputed.merge(current, count, Long::sum);
+                current = parentIds.get(current);
+            }
+        });
+        totals = recomputed;
+    }
+
+    private Map<Long, Long> loadParentIds() {
+        Map<Long, Long> loaded = new HashMap<>();
+        categoryRepository.findAllParentIds().forEach(row -> {
+            if (row.getParentId() != null) {
+                loaded.put(row.getCategoryId(), row.getParentId());
+            }
+        });
+        return loaded;
+    }
+}
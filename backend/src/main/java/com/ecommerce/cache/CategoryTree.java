@@ -0,0 +1,122 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.entity.Category;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, pre-linked snapshot of the active category tree. Every node's response is built
+ * once and shared: a parent's {@code children} list holds the very same objects that are
+ * returned for the children themselves, so no read ever walks a lazy association.
+ * Callers must treat the returned responses as read-only.
+ */
+public final class CategoryTree {
+
+    private static final Comparator<CategoryResponse> BY_SORT_ORDER = Comparator
+            .comparingInt((CategoryResponse c) -> c.getSortOrder() != null ? c.getSortOrder() : 0)
+            .thenComparing(CategoryResponse::getId);
+
+    private final Map<Long, CategoryResponse> byId;
+    private final Map<String, CategoryResponse> bySlug;
+    private final Map<Long, List<CategoryResponse>> childrenByParentId;
+    private final List<CategoryResponse> all;
+    private final List<CategoryResponse> topLevel;
+
+    private CategoryTree(Map<Long, CategoryResponse> byId,
+                         Map<String, CategoryResponse> bySlug,
+                         Map<Long, List<CategoryResponse>> childrenByParentId,
+                         List<CategoryResponse> all,
+                         List<CategoryResponse> topLevel) {
+        this.byId = byId;
+        this.bySlug = bySlug;
+        this.childrenByParentId = childrenByParentId;
+        this.all = all;
+        this.topLevel = topLevel;
+    }
+
+    public static CategoryTree build(List<Category> categories) {
+        Map<Long, String> namesById = new HashMap<>();
+        for (Category category : categories) {
+            namesById.put(category.getId(), category.getName());
+        }
+
+        Map<Long, CategoryResponse> byId = new HashMap<>();
+        Map<String, CategoryResponse> bySlug = new HashMap<>();
+        Map<Long, List<CategoryResponse>> childrenByParentId = new HashMap<>();
+        List<CategoryResponse> all = new ArrayList<>();
+        List<CategoryResponse> topLevel = new ArrayList<>();
+
+        for (Category category : categories) {
+            if (!category.isActive()) {
+                continue;
+            }
+            CategoryResponse response = new CategoryResponse();
+            response.setId(category.getId());
+            response.setName(category.getName());
+            response.setDescription(category.getDescription());
+            response.setSlug(category.getSlug());
+            response.setImageUrl(category.getImageUrl());
+            response.setActive(true);
+            response.setSortOrder(category.getSortOrder());
+            response.setCreatedAt(category.getCreatedAt());
+            response.setUpdatedAt(category.getUpdatedAt());
+
+            // Only the parent's id is read, which never initializes the lazy proxy
+            if (category.getParent() != null) {
+                Long parentId = category.getParent().getId();
+                response.setParentId(parentId);
+                response.setParentName(namesById.get(parentId));
+                childrenByParentId.computeIfAbsent(parentId, id -> new ArrayList<>()).add(response);
+            } else {
+                topLevel.add(response);
+            }
+
+            byId.put(response.getId(), response);
+            bySlug.put(response.getSlug(), response);
+            all.add(response);
+        }
+
+        childrenByParentId.replaceAll((parentId, children) -> {
+            children.sort(BY_SORT_ORDER);
+            return Collections.unmodifiableList(children);
+        });
+        childrenByParentId.forEach((parentId, children) -> {
+            CategoryResponse parent = byId.get(parentId);
+            if (parent != null) {
+                parent.setChildren(children);
+            }
+        });
+        all.sort(BY_SORT_ORDER);
+        topLevel.sort(BY_SORT_ORDER);
+
+        return new CategoryTree(Map.copyOf(byId), Map.copyOf(bySlug), Map.copyOf(childrenByParentId),
+                Collections.unmodifiableList(all), Collections.unmodifiableList(topLevel));
+    }
+
+    public List<CategoryResponse> getAll() {
+        return all;
+    }
+
+    public List<CategoryResponse> getTopLevel() {
+        return topLevel;
+    }
+
+    public Optional<CategoryResponse> findById(Long id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    public Optional<CategoryResponse> findBySlug(String slug) {
+        return Optional.ofNullable(bySlug.get(slug));
+    }
+
+    public List<CategoryResponse> getChildren(Long parentId) {
+        return childrenByParentId.getOrDefault(parentId, Collections.emptyList());
+    }
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Holds the current {@link CategoryTree} and swaps in a freshly built one after every
+ * category write commits. Readers never block: they always see one complete snapshot.
+ */
+@Component
+@Slf4j
+public class CategoryTreeCache {
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private volatile CategoryTree current;
+
+    public CategoryTreeCache(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public CategoryTree get() {
+        CategoryTree tree = current;
+        return tree != null ? tree : rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild();
+    }
+
+    // Serialized so a rebuild that started before a later commit can never overwrite the newer tree
+    public synchronized CategoryTree rebuild() {
+        long start = System.currentTimeMillis();
+        CategoryTree tree = readOnlyTransaction.execute(status -> CategoryTree.build(categoryRepository.findAll()));
+        current = tree;
+        log.debug("Rebuilt category tree with {} active categories in {} ms",
+                tree.getAll().size(), System.currentTimeMillis() - start);
+        return tree;
+    }
+}
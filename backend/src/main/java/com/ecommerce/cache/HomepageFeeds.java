@@ -0,0 +1,196 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.ProductListingAssembler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * The featured, latest and top-rated home page feeds, each kept as a sorted list of at most
+ * {@code app.feeds.size} active products. Product writes are applied to the lists in place
+ * after they commit; a feed is only reloaded when a product drops out of a full list, since
+ * the next candidate is then unknown. A scheduled refresh reconciles anything missed.
+ */
+@Component
+@Slf4j
+public class HomepageFeeds {
+
+    private static final Comparator<ProductResponse> NEWEST_FIRST = Comparator
+            .comparing(ProductResponse::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(ProductResponse::getId, Comparator.reverseOrder());
+
+    private static final Comparator<ProductResponse> HIGHEST_RATED_FIRST = Comparator
+            .comparing((ProductResponse p) -> p.getAverageRating() != null ? p.getAverageRating() : 0.0,
+                    Comparator.reverseOrder())
+            .thenComparing(ProductResponse::getId, Comparator.reverseOrder());
+
+    private static final Sort NEWEST_FIRST_SORT = Sort.by(Sort.Direction.DESC, "createdAt", "id");
+    private static final Sort HIGHEST_RATED_FIRST_SORT = Sort.by(Sort.Direction.DESC, "averageRating", "id");
+
+    private final ProductRepository productRepository;
+    private final ProductListingAssembler listingAssembler;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int size;
+
+    private final Feed featured;
+    private final Feed latest;
+    private final Feed topRated;
+    private volatile boolean ready;
+
+    public HomepageFeeds(ProductRepository productRepository,
+                         ProductListingAssembler listingAssembler,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.feeds.size:24}") int size) {
+        this.productRepository = productRepository;
+        this.listingAssembler = listingAssembler;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.size = size;
+
+        this.featured = new Feed(NEWEST_FIRST, ProductResponse::isFeatured, () -> listingAssembler.toResponses(
+                productRepository.findFeaturedProducts(PageRequest.of(0, size, NEWEST_FIRST_SORT))));
+        this.latest = new Feed(NEWEST_FIRST, product -> true, () -> listingAssembler.toResponses(
+                productRepository.findByStatus(Product.ProductStatus.ACTIVE, ScrollPosition.offset(),
+                        NEWEST_FIRST_SORT, Limit.of(size)).getContent()));
+        this.topRated = new Feed(HIGHEST_RATED_FIRST, product -> true, () -> listingAssembler.toResponses(
+                productRepository.findByStatus(Product.ProductStatus.ACTIVE, ScrollPosition.offset(),
+                        HIGHEST_RATED_FIRST_SORT, Limit.of(size)).getContent()));
+    }
+
+    // Empty until the feeds have been loaded, or when more products are asked for than a feed keeps
+    public Optional<List<ProductResponse>> getFeatured(int limit) {
+        return read(featured, limit);
+    }
+
+    public Optional<List<ProductResponse>> getLatest(int limit) {
+        return read(latest, limit);
+    }
+
+    public Optional<List<ProductResponse>> getTopRated(int limit) {
+        return read(topRated, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.feeds.refresh-interval:PT5M}",
+               initialDelayString = "${app.feeds.refresh-interval:PT5M}")
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            featured.reload();
+            latest.reload();
+            topRated.reload();
+        });
+        ready = true;
+        log.debug("Refreshed home page feeds in {} ms", System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        // Stock changes don't move a product within a feed, only refresh the copy a feed already shows
+        if (event.isStockOnly() && !featured.contains(event.getProductId())
+                && !latest.contains(event.getProductId()) && !topRated.contains(event.getProductId())) {
+            return;
+        }
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            ProductResponse product = productRepository.findAllByIdWithCategory(List.of(event.getProductId()))
+                    .stream()
+                    .filter(p -> p.getStatus() == Product.ProductStatus.ACTIVE)
+                    .findFirst()
+                    .map(p -> listingAssembler.toResponses(List.of(p)).get(0))
+                    .orElse(null);
+            featured.apply(event.getProductId(), product);
+            latest.apply(event.getProductId(), product);
+            topRated.apply(event.getProductId(), product);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        refresh();
+    }
+
+    private Optional<List<ProductResponse>> read(Feed feed, int limit) {
+        if (!ready || limit > size) {
+            return Optional.empty();
+        }
+        List<ProductResponse> entries = feed.entries;
+        return Optional.of(entries.subList(0, Math.min(limit, entries.size())));
+    }
+
+    private final class Feed {
+
+        private final Comparator<ProductResponse> order;
+        private final Predicate<ProductResponse> eligible;
+        private final Supplier<List<ProductResponse>> loader;
+        private volatile List<ProductResponse> entries = Collections.emptyList();
+
+        private Feed(Comparator<ProductResponse> order,
+                     Predicate<ProductResponse> eligible,
+                     Supplier<List<ProductResponse>> loader) {
+            this.order = order;
+            this.eligible = eligible;
+            this.loader = loader;
+        }
+
+        private boolean contains(Long productId) {
+            return entries.stream().anyMatch(entry -> entry.getId().equals(productId));
+        }
+
+        private void reload() {
+            entries = Collections.unmodifiableList(new ArrayList<>(loader.get()));
+        }
+
+        // product is null when it is no longer active
+        private void apply(Long productId, ProductResponse product) {
+            List<ProductResponse> updated = new ArrayList<>(entries);
+            boolean wasFull = updated.size() >= size;
+            boolean removed = updated.removeIf(entry -> entry.getId().equals(productId));
+
+            int position = -1;
+            if (product != null && eligible.test(product)) {
+                int index = Collections.binarySearch(updated, product, order);
+                position = index < 0 ? -index - 1 : index;
+                updated.add(position, product);
+            }
+            if (updated.size() > size) {
+                updated = updated.subList(0, size);
+            }
+
+            // Whatever ranked just below the cut-off is not held in memory, so a full feed that lost
+            // a product, or whose product sank to the last slot, may now be missing a better one
+            boolean sankToLast = position == size - 1;
+            if (removed && wasFull && (updated.size() < size || sankToLast)) {
+                reload();
+            } else {
+                entries = Collections.unmodifiableList(new ArrayList<>(updated));
+            }
+        }
+    }
+}
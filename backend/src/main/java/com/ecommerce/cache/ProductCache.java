@@ -0,0 +1,117 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of fully materialized {@link ProductResponse}s for active products,
+ * keyed by id with a secondary slug to id mapping. Entries are bounded by size and TTL and
+ * are invalidated after any product write commits. Hit, miss and eviction counts are
+ * published through Micrometer as the {@code products.byId} and {@code products.bySlug} caches.
+ */
+@Component
+public class ProductCache {
+
+    public static final int INVALIDATION_ORDER = 0;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<Long, ProductResponse> productsById;
+    private final Cache<String, Long> productIdsBySlug;
+
+    public ProductCache(ProductRepository productRepository,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.cache.products.maximum-size:10000}") long maximumSize,
+                        @Value("${app.cache.products.ttl:PT10M}") Duration ttl) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.productIdsBySlug = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, productsById, "products.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, productIdsBySlug, "products.bySlug");
+    }
+
+    public Optional<ProductResponse> getById(Long id) {
+        return Optional.ofNullable(productsById.get(id, key -> load(() -> productRepository.findById(key))));
+    }
+
+    public Optional<ProductResponse> getBySlug(String slug) {
+        Long id = productIdsBySlug.getIfPresent(slug);
+        if (id != null) {
+            Optional<ProductResponse> cached = getById(id).filter(product -> slug.equals(product.getSlug()));
+            if (cached.isPresent()) {
+                return cached;
+            }
+            // The product may have been renamed since the slug was mapped
+            productIdsBySlug.invalidate(slug);
+        }
+
+        // Loaded through the id cache, so an invalidation committing meanwhile can't be overtaken
+        return readOnlyTransaction.execute(status -> productRepository.findIdBySlug(slug))
+                .flatMap(this::getById)
+                .filter(product -> slug.equals(product.getSlug()));
+    }
+
+    public void invalidate(Long id) {
+        ProductResponse cached = productsById.getIfPresent(id);
+        if (cached != null) {
+            productIdsBySlug.invalidate(cached.getSlug());
+        }
+        productsById.invalidate(id);
+    }
+
+    // Runs before the caches built from these entries drop theirs, so they can't be refilled from a stale one
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(INVALIDATION_ORDER)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.getProductId());
+    }
+
+    private ProductResponse load(Supplier<Optional<Product>> finder) {
+        ProductResponse response = readOnlyTransaction.execute(status -> finder.get()
+                .filter(product -> product.getStatus() == Product.ProductStatus.ACTIVE)
+                .map(ProductCache::materialize)
+                .orElse(null));
+        if (response != null) {
+            productIdsBySlug.put(response.getSlug(), response.getId());
+        }
+        return response;
+    }
+
+    // Copies the lazy collections so the cached response never touches a closed session
+    private static ProductResponse materialize(Product product) {
+        ProductResponse response = ProductResponse.fromEntity(product);
+        response.setImageUrls(product.getImageUrls() != null ? new ArrayList<>(product.getImageUrls()) : null);
+        response.setTags(product.getTags() != null ? new ArrayList<>(product.getTags()) : null);
+        return response;
+    }
+}
@@ -0,0 +1,127 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Serialized JSON for the catalog read endpoints, so a repeat request is answered from
+ * bytes without rebuilding the response or running Jackson again. Each ETag starts with
+ * the entity's {@code updatedAt}; a digest of the bytes follows because a product embeds
+ * its category's name and the category list embeds product counts, neither of which moves
+ * the timestamp. Entries are dropped by the same events that invalidate the caches behind them.
+ */
+@Component
+public class SerializedCatalogCache {
+
+    private static final String ALL_CATEGORIES = "all";
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, SerializedResponse> productsById;
+    private final Cache<String, SerializedResponse> categories;
+
+    public SerializedCatalogCache(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.cache.products.maximum-size:10000}") long maximumSize,
+                                  @Value("${app.cache.products.ttl:PT10M}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.productsById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.categories = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, productsById, "products.serialized");
+        CaffeineCacheMetrics.monitor(meterRegistry, categories, "categories.serialized");
+    }
+
+    public SerializedResponse getProductById(Long id) {
+        return productsById.getIfPresent(id);
+    }
+
+    public SerializedResponse putProduct(ProductResponse product) {
+        return productsById.get(product.getId(), id -> serialize(product, "p" + id, product.getUpdatedAt()));
+    }
+
+    public SerializedResponse getAllCategories(Supplier<List<CategoryResponse>> loader) {
+        return categories.get(ALL_CATEGORIES, key -> {
+            List<CategoryResponse> all = loader.get();
+            LocalDateTime lastUpdated = all.stream()
+                    .map(CategoryResponse::getUpdatedAt)
+                    .filter(Objects::nonNull)
+                    .max(LocalDateTime::compareTo)
+                    .orElse(null);
+            return serialize(all, "c", lastUpdated);
+        });
+    }
+
+    // After ProductCache: a request missing here re-serializes its entry, which must already be fresh
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(ProductCache.INVALIDATION_ORDER + 1)
+    public void onProductChanged(ProductChangedEvent event) {
+        productsById.invalidate(event.getProductId());
+        if (!event.isStockOnly()) {
+            categories.invalidateAll();
+        }
+    }
+
+    // New products change the rolled-up counts in the category list
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        categories.invalidateAll();
+    }
+
+    // Products embed their category, so a rename has to drop them too
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categories.invalidateAll();
+        productsById.invalidateAll();
+    }
+
+    private SerializedResponse serialize(Object value, String prefix, LocalDateTime updatedAt) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            long version = updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC).toEpochMilli() : 0;
+            String etag = "\"" + prefix + "-" + Long.toHexString(version) + "-" + digest(body) + "\"";
+            return new SerializedResponse(body, etag);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response", e);
+        }
+    }
+
+    private static String digest(byte[] body) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.cart;
+
+import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.dto.response.CartResponse;
+
+import java.util.Optional;
+
+/**
+ * Where carts are kept, chosen by {@code app.cart.store}: {@code database} (the default) or
+ * {@code write-behind}.
+ */
+public interface CartStore {
+
+    Optional<CartResponse> getCart(String firebaseUid);
+
+    CartResponse addToCart(String firebaseUid, AddToCartRequest request);
+
+    CartResponse updateCartItem(String firebaseUid, Long cartItemId, Integer quantity);
+
+    CartResponse removeFromCart(String firebaseUid, Long cartItemId);
+
+    void clearCart(String firebaseUid);
+
+    /**
+     * Makes sure {@code carts} and {@code cart_items} hold the user's current cart, within the
+     * caller's transaction when there is one.
+     */
+    void flush(String firebaseUid);
+}
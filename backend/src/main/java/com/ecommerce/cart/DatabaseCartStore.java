@@ -0,0 +1,209 @@
+package com.ecommerce.cart;
+
+import com.ecommerce.concurrency.RetryOnConflict;
+import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.dto.response.CartResponse;
+import com.ecommerce.entity.Cart;
+import com.ecommerce.entity.CartItem;
+import com.ecommerce.entity.Product;
+import com.ecommerce.identity.UserIdentity;
+import com.ecommerce.identity.UserIdentityCache;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * The default cart storage: every change is written to {@code carts} and {@code cart_items}
+ * in its own transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "database", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class DatabaseCartStore implements CartStore {
+    
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final ProductService productService;
+    
+    @Override
+    @RetryOnConflict
+    public CartResponse addToCart(String firebaseUid, AddToCartRequest request) {
+        UserIdentity user = userIdentityCache.require(firebaseUid);
+        
+        // Loaded first, so a product already in the cart comes from the persistence context below
+        Cart cart = cartRepository.findByUserIdWithItemsAndProducts(user.getUserId())
+                .orElseGet(() -> {
+                    Cart newCart = new Cart();
+                    newCart.setUser(userRepository.getReferenceById(user.getUserId()));
+                    newCart.setItems(new ArrayList<>());
+                    return cartRepository.save(newCart);
+                });
+        
+        Product product = productRepository.findById(request.getProductId())
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        
+        // Check if product is available
+        if (!productService.isProductAvailable(product, request.getQuantity())) {
+            throw new RuntimeException("Product is not available or insufficient stock");
+        }
+        
+        // Check if product already exists in cart
+        Optional<CartItem> existingItem = cart.getItems().stream()
+                .filter(item -> item.getProduct().getId().equals(product.getId()))
+                .findFirst();
+        
+        CartItem cartItem;
+        if (existingItem.isPresent()) {
+            cartItem = existingItem.get();
+            int newQuantity = cartItem.getQuantity() + request.getQuantity();
+            
+            // Check if new quantity is available
+            if (!productService.isProductAvailable(product, newQuantity)) {
+                throw new RuntimeException("Insufficient stock for requested quantity");
+            }
+            
+            setQuantity(cart, cartItem, newQuantity);
+        } else {
+            cartItem = new CartItem();
+            cartItem.setCart(cart);
+            cartItem.setProduct(product);
+            cartItem.setUnitPrice(product.getSalePrice() != null ? product.getSalePrice() : product.getPrice());
+            setQuantity(cart, cartItem, request.getQuantity());
+            cart.getItems().add(cartItem);
+            cartItemRepository.save(cartItem);
+        }
+        
+        log.info("Added product {} to cart for user {}", product.getId(), firebaseUid);
+        return toResponse(cartRepository.saveAndFlush(cart));
+    }
+    
+    @Override
+    @RetryOnConflict
+    public CartResponse updateCartItem(String firebaseUid, Long cartItemId, Integer quantity) {
+        UserIdentity user = userIdentityCache.require(firebaseUid);
+        
+        Cart cart = cartRepository.findByUserIdWithItemsAndProducts(user.getUserId())
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        CartItem cartItem = findItem(cart, cartItemId);
+        
+        if (quantity <= 0) {
+            removeItem(cart, cartItem);
+            log.info("Removed cart item {} for user {}", cartItemId, firebaseUid);
+        } else {
+            // Check if quantity is available
+            if (!productService.isProductAvailable(cartItem.getProduct(), quantity)) {
+                throw new RuntimeException("Insufficient stock for requested quantity");
+            }
+            
+            setQuantity(cart, cartItem, quantity);
+            log.info("Updated cart item {} quantity to {} for user {}", cartItemId, quantity, firebaseUid);
+        }
+        
+        return toResponse(cartRepository.saveAndFlush(cart));
+    }
+    
+    @Override
+    @RetryOnConflict
+    public CartResponse removeFromCart(String firebaseUid, Long cartItemId) {
+        UserIdentity user = userIdentityCache.require(firebaseUid);
+        
+        Cart cart = cartRepository.findByUserIdWithItemsAndProducts(user.getUserId())
+                .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        removeItem(cart, findItem(cart, cartItemId));
+        
+        log.info("Removed cart item {} for user {}", cartItemId, firebaseUid);
+        return toResponse(cartRepository.saveAndFlush(cart));
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<CartResponse> getCart(String firebaseUid) {
+        UserIdentity user = userIdentityCache.require(firebaseUid);
+        
+        return cartRepository.findByUserIdWithItemsAndProducts(user.getUserId())
+                .map(this::toResponse);
+    }
+    
+    @Override
+    @RetryOnConflict
+    public void clearCart(String firebaseUid) {
+        UserIdentity user = userIdentityCache.require(firebaseUid);
+        
+        Cart cart = cartRepository.findByUserId(user.getUserId())
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        
+        cartItemRepository.deleteByCartId(cart.getId());
+        cart.setTotalAmount(BigDecimal.ZERO);
+        cart.setTotalItems(0);
+        cartRepository.save(cart);
+        
+        log.info("Cleared cart for user {}", firebaseUid);
+    }
+    
+    // Every change is already in the database
+    @Override
+    public void flush(String firebaseUid) {
+    }
+    
+    // Ownership is implied by finding the item in the user's own cart
+    private CartItem findItem(Cart cart, Long cartItemId) {
+        return cart.getItems().stream()
+                .filter(item -> item.getId().equals(cartItemId))
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException(cartItemRepository.existsById(cartItemId)
+                        ? "Cart item does not belong to user" : "Cart item not found"));
+    }
+    
+    // Moves the cart totals by the line's change instead of summing every line again
+    private void setQuantity(Cart cart, CartItem cartItem, int quantity) {
+        int previousQuantity = cartItem.getQuantity() != null ? cartItem.getQuantity() : 0;
+        BigDecimal previousTotal = cartItem.getTotalPrice() != null ? cartItem.getTotalPrice() : BigDecimal.ZERO;
+        BigDecimal total = cartItem.getUnitPrice().multiply(BigDecimal.valueOf(quantity));
+        
+        cartItem.setQuantity(quantity);
+        cartItem.setTotalPrice(total);
+        cart.setTotalItems(cart.getTotalItems() + quantity - previousQuantity);
+        cart.setTotalAmount(cart.getTotalAmount().add(total).subtract(previousTotal));
+    }
+    
+    private void removeItem(Cart cart, CartItem cartItem) {
+        cart.setTotalItems(cart.getTotalItems() - cartItem.getQuantity());
+        cart.setTotalAmount(cart.getTotalAmount().subtract(cartItem.getTotalPrice()));
+        cart.getItems().remove(cartItem);
+        cartItemRepository.delete(cartItem);
+    }
+    
+    // Only each product's first image is shown, so the images of the whole cart come from one query
+    private CartResponse toResponse(Cart cart) {
+        List<Long> productIds = cart.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, String> imageUrls = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findImageUrlsByProductIds(productIds)
+                    .forEach(row -> imageUrls.putIfAbsent(row.getProductId(), row.getAttribute()));
+        }
+        return CartResponse.fromEntity(cart, imageUrls);
+    }
+}
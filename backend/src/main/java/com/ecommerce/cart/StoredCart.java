@@ -0,0 +1,106 @@
+package com.ecommerce.cart;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A cart held by {@link WriteBehindCartStore}. All access is synchronized on the instance.
+ * Every change bumps {@code generation}; the cart is dirty until a flush of that generation
+ * has committed.
+ */
+final class StoredCart {
+
+    final Long cartId;
+    final String firebaseUid;
+    final LocalDateTime createdAt;
+    final Map<Long, Line> linesByProductId = new LinkedHashMap<>();
+    BigDecimal totalAmount = BigDecimal.ZERO;
+    int totalItems;
+    LocalDateTime updatedAt;
+
+    long generation;
+    long flushedGeneration;
+    boolean queued;
+    // Set while a transaction clearing the cart in the database is in flight
+    boolean discarding;
+    boolean evicted;
+    Instant lastAccess = Instant.now();
+
+    StoredCart(Long cartId, String firebaseUid, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.cartId = cartId;
+        this.firebaseUid = firebaseUid;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    boolean isDirty() {
+        return generation != flushedGeneration;
+    }
+
+    // Matches the database id, or the temporary id handed out before the line was first flushed
+    Optional<Line> findLine(Long itemId) {
+        return linesByProductId.values().stream()
+                .filter(line -> itemId.equals(line.id) || itemId == line.temporaryId)
+                .findFirst();
+    }
+
+    // Moves the totals by the line's change instead of summing every line again
+    void setQuantity(Line line, int quantity) {
+        BigDecimal total = line.unitPrice.multiply(BigDecimal.valueOf(quantity));
+        totalItems += quantity - line.quantity;
+        totalAmount = totalAmount.add(total).subtract(line.totalPrice);
+        line.quantity = quantity;
+        line.totalPrice = total;
+    }
+
+    void removeLine(Line line) {
+        totalItems -= line.quantity;
+        totalAmount = totalAmount.subtract(line.totalPrice);
+        linesByProductId.remove(line.productId);
+    }
+
+    // Once the cart's rows are cleared, keeps only what was added since the last flush
+    void keepUnflushedChanges() {
+        for (Line line : new ArrayList<>(linesByProductId.values())) {
+            int added = line.quantity - line.flushedQuantity;
+            if (added <= 0) {
+                removeLine(line);
+            } else {
+                setQuantity(line, added);
+                line.id = null;
+                line.flushedQuantity = 0;
+            }
+        }
+    }
+
+    static final class Line {
+
+        Long id;
+        final long temporaryId;
+        final Long productId;
+        final String productName;
+        final String productSlug;
+        final String productImageUrl;
+        final BigDecimal unitPrice;
+        int quantity;
+        // The quantity in the database as of the last committed flush
+        int flushedQuantity;
+        BigDecimal totalPrice = BigDecimal.ZERO;
+
+        Line(Long id, long temporaryId, Long productId, String productName, String productSlug,
+             String productImageUrl, BigDecimal unitPrice) {
+            this.id = id;
+            this.temporaryId = temporaryId;
+            this.productId = productId;
+            this.productName = productName;
+            this.productSlug = productSlug;
+            this.productImageUrl = productImageUrl;
+            this.unitPrice = unitPrice;
+        }
+    }
+}
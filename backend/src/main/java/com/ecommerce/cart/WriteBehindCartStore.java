@@ -0,0 +1,561 @@
+package com.ecommerce.cart;
+
+import com.ecommerce.cache.ProductCache;
+import com.ecommerce.concurrency.RetryOnConflict;
+import com.ecommerce.concurrency.TransactionCallbacks;
+import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.dto.response.CartResponse;
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Cart;
+import com.ecommerce.entity.CartItem;
+import com.ecommerce.identity.UserIdentityCache;
+import com.ecommerce.idgen.IdBlockAllocator;
+import com.ecommerce.idgen.IdSequences;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind storage for carts, used when {@code app.cart.store=write-behind}. Active carts
+ * live in memory keyed by the owner's Firebase UID and are written to {@code carts} and
+ * {@code cart_items} in batches by a background flush. Changed carts wait in a bounded queue;
+ * when it is full, the writer flushes its own cart instead. Readers of the cart tables have to
+ * {@link #flush(String)} first, and shutdown flushes everything still pending. Changes made
+ * since the last flush are lost if the process dies without shutting down.
+ *
+ * A flush writes a cart's whole state: it locks the cart row, then takes the in-memory copy,
+ * so overlapping flushes of one cart commit in order and the later one always writes newer
+ * state. Lines are matched to rows by product, so a retried flush never duplicates a line.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "write-behind")
+@Slf4j
+public class WriteBehindCartStore implements CartStore {
+
+    private static final String LOCK_CARTS = "SELECT id FROM carts WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+    private static final String SELECT_ITEMS = "SELECT id, cart_id, product_id FROM cart_items WHERE cart_id IN (:ids)";
+    private static final String UPDATE_CART = "UPDATE carts SET total_amount = ?, total_items = ?, updated_at = ?, " +
+            "version = version + 1 WHERE id = ?";
+    private static final String UPDATE_ITEM = "UPDATE cart_items SET quantity = ?, unit_price = ?, total_price = ?, " +
+            "updated_at = ?, version = version + 1 WHERE id = ?";
+    private static final String INSERT_ITEM = "INSERT INTO cart_items (id, cart_id, product_id, quantity, unit_price, " +
+            "total_price, created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String DELETE_ITEM = "DELETE FROM cart_items WHERE id = ?";
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final IdBlockAllocator idBlockAllocator;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductService productService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration idleTimeout;
+
+    private final Map<String, StoredCart> carts = new ConcurrentHashMap<>();
+    private final BlockingQueue<StoredCart> dirty;
+    private final AtomicLong temporaryIds = new AtomicLong();
+    private final Counter flushed;
+    private final Counter overflows;
+
+    public WriteBehindCartStore(CartRepository cartRepository,
+                                CartItemRepository cartItemRepository,
+                                UserRepository userRepository,
+                                UserIdentityCache userIdentityCache,
+                                IdBlockAllocator idBlockAllocator,
+                                ProductRepository productRepository,
+                                ProductCache productCache,
+                                ProductService productService,
+                                NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.cart.write-behind.batch-size:500}") int batchSize,
+                                @Value("${app.cart.write-behind.max-dirty:10000}") int maxDirty,
+                                @Value("${app.cart.write-behind.idle-timeout:PT30M}") Duration idleTimeout) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.idBlockAllocator = idBlockAllocator;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.productService = productService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(batchSize, 1);
+        this.idleTimeout = idleTimeout;
+        this.dirty = new ArrayBlockingQueue<>(Math.max(maxDirty, 1));
+
+        this.flushed = meterRegistry.counter("carts.write_behind.flushed");
+        this.overflows = meterRegistry.counter("carts.write_behind.overflows");
+        meterRegistry.gaugeCollectionSize("carts.write_behind.dirty", List.of(), dirty);
+        meterRegistry.gaugeMapSize("carts.write_behind.active", List.of(), carts);
+    }
+
+    @Override
+    public Optional<CartResponse> getCart(String firebaseUid) {
+        StoredCart cart = getOrLoad(firebaseUid);
+        synchronized (cart) {
+            cart.lastAccess = Instant.now();
+            return Optional.of(toResponse(cart));
+        }
+    }
+
+    @Override
+    public CartResponse addToCart(String firebaseUid, AddToCartRequest request) {
+        Long productId = request.getProductId();
+        int quantity = request.getQuantity();
+        ProductResponse product = productCache.getById(productId)
+                .orElseThrow(() -> new RuntimeException("Product is not available or insufficient stock"));
+        if (!productService.isProductAvailable(productId, quantity)) {
+            throw new RuntimeException("Product is not available or insufficient stock");
+        }
+
+        return mutate(firebaseUid, cart -> {
+            StoredCart.Line line = cart.linesByProductId.get(productId);
+            if (line != null) {
+                int newQuantity = line.quantity + quantity;
+                if (!productService.isProductAvailable(productId, newQuantity)) {
+                    throw new RuntimeException("Insufficient stock for requested quantity");
+                }
+                cart.setQuantity(line, newQuantity);
+            } else {
+                line = new StoredCart.Line(null, -temporaryIds.incrementAndGet(), productId, product.getName(),
+                        product.getSlug(), firstImage(product.getImageUrls()),
+                        product.getSalePrice() != null ? product.getSalePrice() : product.getPrice());
+                cart.linesByProductId.put(productId, line);
+                cart.setQuantity(line, quantity);
+            }
+            return toResponse(cart);
+        });
+    }
+
+    @Override
+    public CartResponse updateCartItem(String firebaseUid, Long cartItemId, Integer quantity) {
+        return mutate(firebaseUid, cart -> {
+            StoredCart.Line line = cart.findLine(cartItemId)
+                    .orElseThrow(() -> new RuntimeException("Cart item not found"));
+            if (quantity <= 0) {
+                cart.removeLine(line);
+            } else {
+                if (!productService.isProductAvailable(line.productId, quantity)) {
+                    throw new RuntimeException("Insufficient stock for requested quantity");
+                }
+                cart.setQuantity(line, quantity);
+            }
+            return toResponse(cart);
+        });
+    }
+
+    @Override
+    public CartResponse removeFromCart(String firebaseUid, Long cartItemId) {
+        return mutate(firebaseUid, cart -> {
+            cart.removeLine(cart.findLine(cartItemId)
+                    .orElseThrow(() -> new RuntimeException("Cart item not found")));
+            return toResponse(cart);
+        });
+    }
+
+    /**
+     * Clears the cart in the database, locking its row first like a flush does. Once that
+     * commits, the in-memory cart is dropped, or, if it was changed after its last flush (say
+     * from a second tab while an order was placed), cut down to those changes and written back.
+     */
+    @Override
+    @RetryOnConflict
+    public void clearCart(String firebaseUid) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findByUserFirebaseUid(firebaseUid)
+                    .orElseThrow(() -> new RuntimeException("Cart not found"));
+            jdbcTemplate.queryForList(LOCK_CARTS, Map.of("ids", List.of(cart.getId())), Long.class);
+
+            cartItemRepository.deleteByCartId(cart.getId());
+            cart.setTotalAmount(BigDecimal.ZERO);
+            cart.setTotalItems(0);
+            cartRepository.save(cart);
+            discard(firebaseUid);
+        });
+        log.info("Cleared cart for user {}", firebaseUid);
+    }
+
+    // Writes the user's cart if it has unflushed changes. Either way its row stays locked for the rest
+    // of the caller's transaction, so no background flush replaces the rows the caller reads back.
+    @Override
+    public void flush(String firebaseUid) {
+        StoredCart cart = carts.get(firebaseUid);
+        if (cart == null) {
+            return;
+        }
+        boolean dirty;
+        synchronized (cart) {
+            dirty = cart.isDirty();
+        }
+        if (dirty) {
+            write(List.of(cart));
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            jdbcTemplate.queryForList(LOCK_CARTS, Map.of("ids", List.of(cart.cartId)), Long.class);
+        }
+    }
+
+    // Settles the in-memory cart once the clearing transaction commits; until then it isn't flushed,
+    // so it can't be written back over the cleared rows
+    private void discard(String firebaseUid) {
+        StoredCart cart = carts.get(firebaseUid);
+        if (cart == null) {
+            return;
+        }
+        synchronized (cart) {
+            cart.discarding = true;
+        }
+        Runnable complete = () -> {
+            synchronized (cart) {
+                cart.discarding = false;
+                if (cart.isDirty()) {
+                    cart.keepUnflushedChanges();
+                    if (!cart.queued) {
+                        cart.queued = dirty.offer(cart);
+                    }
+                    return;
+                }
+                cart.evicted = true;
+                carts.remove(firebaseUid, cart);
+            }
+        };
+        TransactionCallbacks.afterCompletion(complete, () -> {
+            synchronized (cart) {
+                cart.discarding = false;
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.write-behind.flush-interval:PT1S}")
+    public void flushDirty() {
+        List<StoredCart> batch = new ArrayList<>(batchSize);
+        while (dirty.drainTo(batch, batchSize) > 0) {
+            batch.forEach(cart -> {
+                synchronized (cart) {
+                    cart.queued = false;
+                }
+            });
+            try {
+                write(batch);
+            } catch (RuntimeException e) {
+                // Still dirty; the sweep below queues them again
+                log.warn("Failed to flush {} carts: {}", batch.size(), e.getMessage());
+                break;
+            }
+            batch.clear();
+        }
+        sweep();
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        List<StoredCart> pending = carts.values().stream()
+                .filter(cart -> {
+                    synchronized (cart) {
+                        return cart.isDirty();
+                    }
+                })
+                .collect(Collectors.toList());
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            write(pending.subList(from, Math.min(from + batchSize, pending.size())));
+        }
+        log.info("Flushed {} carts on shutdown", pending.size());
+    }
+
+    private <T> T mutate(String firebaseUid, Function<StoredCart, T> change) {
+        while (true) {
+            StoredCart cart = getOrLoad(firebaseUid);
+            T result;
+            boolean overflow = false;
+            synchronized (cart) {
+                if (cart.evicted) {
+                    continue;
+                }
+                result = change.apply(cart);
+                cart.generation++;
+                cart.updatedAt = LocalDateTime.now();
+                cart.lastAccess = Instant.now();
+                if (!cart.queued) {
+                    cart.queued = dirty.offer(cart);
+                    overflow = !cart.queued;
+                }
+            }
+            // The flush queue is full: the writer pays for its own change rather than grow it
+            if (overflow) {
+                overflows.increment();
+                write(List.of(cart));
+            }
+            return result;
+        }
+    }
+
+    private StoredCart getOrLoad(String firebaseUid) {
+        StoredCart cart = carts.get(firebaseUid);
+        if (cart != null) {
+            return cart;
+        }
+        StoredCart loaded = transactionTemplate.execute(status -> load(firebaseUid));
+        StoredCart existing = carts.putIfAbsent(firebaseUid, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private StoredCart load(String firebaseUid) {
+        Cart cart = cartRepository.findByUserFirebaseUidWithItemsAndProducts(firebaseUid)
+                .orElseGet(() -> {
+                    Cart newCart = new Cart();
+                    newCart.setUser(userRepository.getReferenceById(userIdentityCache.require(firebaseUid).getUserId()));
+                    newCart.setItems(new ArrayList<>());
+                    return cartRepository.saveAndFlush(newCart);
+                });
+
+        Map<Long, String> imageUrls = new HashMap<>();
+        List<Long> productIds = cart.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toList());
+        if (!productIds.isEmpty()) {
+            productRepository.findImageUrlsByProductIds(productIds)
+                    .forEach(row -> imageUrls.putIfAbsent(row.getProductId(), row.getAttribute()));
+        }
+
+        StoredCart stored = new StoredCart(cart.getId(), firebaseUid, cart.getCreatedAt(), cart.getUpdatedAt());
+        for (CartItem item : cart.getItems()) {
+            StoredCart.Line line = new StoredCart.Line(item.getId(), -temporaryIds.incrementAndGet(),
+                    item.getProduct().getId(), item.getProduct().getName(), item.getProduct().getSlug(),
+                    imageUrls.get(item.getProduct().getId()), item.getUnitPrice());
+            line.quantity = item.getQuantity();
+            line.flushedQuantity = item.getQuantity();
+            line.totalPrice = item.getTotalPrice();
+            stored.linesByProductId.put(line.productId, line);
+        }
+        stored.totalAmount = cart.getTotalAmount() != null ? cart.getTotalAmount() : BigDecimal.ZERO;
+        stored.totalItems = cart.getTotalItems() != null ? cart.getTotalItems() : 0;
+        return stored;
+    }
+
+    private void write(List<StoredCart> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> cartIds = batch.stream().map(cart -> cart.cartId).sorted().collect(Collectors.toList());
+            // Serializes flushes of the same cart across transactions before its state is copied
+            jdbcTemplate.queryForList(LOCK_CARTS, Map.of("ids", cartIds), Long.class);
+
+            List<Snapshot> snapshots = new ArrayList<>();
+            for (StoredCart cart : batch) {
+                synchronized (cart) {
+                    if (!cart.discarding && !cart.evicted) {
+                        snapshots.add(new Snapshot(cart));
+                    }
+                }
+            }
+            if (snapshots.isEmpty()) {
+                return;
+            }
+            snapshots.sort(Comparator.comparing(snapshot -> snapshot.cart.cartId));
+            Map<Long, Map<Long, Long>> rows = selectItems(snapshots.stream()
+                    .map(snapshot -> snapshot.cart.cartId).collect(Collectors.toList()));
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            Map<Long, Map<Long, Long>> itemIds = new HashMap<>();
+            List<Object[]> cartUpdates = new ArrayList<>();
+            List<Object[]> itemUpdates = new ArrayList<>();
+            List<Object[]> itemInserts = new ArrayList<>();
+            List<Object[]> itemDeletes = new ArrayList<>();
+            for (Snapshot snapshot : snapshots) {
+                Long cartId = snapshot.cart.cartId;
+                cartUpdates.add(new Object[]{snapshot.totalAmount, snapshot.totalItems, now, cartId});
+                Map<Long, Long> existing = rows.getOrDefault(cartId, Map.of());
+                Map<Long, Long> ids = itemIds.computeIfAbsent(cartId, id -> new HashMap<>());
+                for (LineSnapshot line : snapshot.lines) {
+                    Long itemId = existing.get(line.productId);
+                    if (itemId != null) {
+                        itemUpdates.add(new Object[]{line.quantity, line.unitPrice, line.totalPrice, now, itemId});
+                        ids.put(line.productId, itemId);
+                    } else {
+                        itemInserts.add(new Object[]{null, cartId, line.productId, line.quantity, line.unitPrice,
+                                line.totalPrice, now, now});
+                    }
+                }
+                existing.forEach((productId, itemId) -> {
+                    if (snapshot.lines.stream().noneMatch(line -> line.productId.equals(productId))) {
+                        itemDeletes.add(new Object[]{itemId});
+                    }
+                });
+            }
+
+            // New lines get their ids up front, so they don't have to be read back after the insert
+            if (!itemInserts.isEmpty()) {
+                long itemId = idBlockAllocator.allocate(IdSequences.CART_ITEMS, itemInserts.size());
+                for (Object[] insert : itemInserts) {
+                    insert[0] = itemId;
+                    itemIds.get((Long) insert[1]).put((Long) insert[2], itemId++);
+                }
+            }
+
+            jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_CART, cartUpdates);
+            jdbcTemplate.getJdbcTemplate().batchUpdate(UPDATE_ITEM, itemUpdates);
+            jdbcTemplate.getJdbcTemplate().batchUpdate(DELETE_ITEM, itemDeletes);
+            jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_ITEM, itemInserts);
+
+            TransactionCallbacks.afterCommit(() ->
+                    snapshots.forEach(snapshot -> snapshot.applyCommitted(itemIds.get(snapshot.cart.cartId))));
+            flushed.increment(snapshots.size());
+        });
+    }
+
+    private Map<Long, Map<Long, Long>> selectItems(List<Long> cartIds) {
+        Map<Long, Map<Long, Long>> rows = new HashMap<>();
+        List<Object[]> duplicates = new ArrayList<>();
+        jdbcTemplate.query(SELECT_ITEMS, Map.of("ids", cartIds), (RowCallbackHandler) rs -> {
+            Long previous = rows.computeIfAbsent(rs.getLong("cart_id"), id -> new HashMap<>())
+                    .putIfAbsent(rs.getLong("product_id"), rs.getLong("id"));
+            if (previous != null) {
+                duplicates.add(new Object[]{rs.getLong("id")});
+            }
+        });
+        jdbcTemplate.getJdbcTemplate().batchUpdate(DELETE_ITEM, duplicates);
+        return rows;
+    }
+
+    // Forgets carts nobody has touched in a while once they are safely written, and requeues
+    // dirty carts that a failed flush or a full queue left behind
+    private void sweep() {
+        Instant idleSince = Instant.now().minus(idleTimeout);
+        for (StoredCart cart : carts.values()) {
+            synchronized (cart) {
+                if (cart.isDirty()) {
+                    if (!cart.queued) {
+                        cart.queued = dirty.offer(cart);
+                    }
+                } else if (cart.lastAccess.isBefore(idleSince) && !cart.discarding) {
+                    cart.evicted = true;
+                    carts.remove(cart.firebaseUid, cart);
+                }
+            }
+        }
+    }
+
+    // Callers hold the cart's monitor
+    private CartResponse toResponse(StoredCart cart) {
+        CartResponse response = new CartResponse();
+        response.setId(cart.cartId);
+        response.setItems(cart.linesByProductId.values().stream()
+                .map(line -> {
+                    ProductResponse product = productCache.getById(line.productId).orElse(null);
+                    CartResponse.CartItemResponse item = new CartResponse.CartItemResponse();
+                    item.setId(line.id != null ? line.id : line.temporaryId);
+                    item.setProductId(line.productId);
+                    item.setProductName(product != null ? product.getName() : line.productName);
+                    item.setProductSlug(product != null ? product.getSlug() : line.productSlug);
+                    item.setProductImageUrl(product != null ? firstImage(product.getImageUrls()) : line.productImageUrl);
+                    item.setUnitPrice(line.unitPrice);
+                    item.setQuantity(line.quantity);
+                    item.setTotalPrice(line.totalPrice);
+                    item.setAvailable(product != null && product.getStockQuantity() >= line.quantity);
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        response.setTotalAmount(cart.totalAmount);
+        response.setTotalItems(cart.totalItems);
+        response.setCreatedAt(cart.createdAt);
+        response.setUpdatedAt(cart.updatedAt);
+        return response;
+    }
+
+    private static String firstImage(List<String> imageUrls) {
+        return imageUrls != null && !imageUrls.isEmpty() ? imageUrls.get(0) : null;
+    }
+
+    private static final class Snapshot {
+
+        private final StoredCart cart;
+        private final long generation;
+        private final BigDecimal totalAmount;
+        private final int totalItems;
+        private final List<LineSnapshot> lines;
+
+        // Taken under the cart's monitor
+        private Snapshot(StoredCart cart) {
+            this.cart = cart;
+            this.generation = cart.generation;
+            this.totalAmount = cart.totalAmount;
+            this.totalItems = cart.totalItems;
+            this.lines = cart.linesByProductId.values().stream()
+                    .map(LineSnapshot::new)
+                    .collect(Collectors.toList());
+        }
+
+        private void applyCommitted(Map<Long, Long> itemIds) {
+            synchronized (cart) {
+                if (generation >= cart.flushedGeneration) {
+                    for (LineSnapshot snapshot : lines) {
+                        StoredCart.Line line = cart.linesByProductId.get(snapshot.productId);
+                        if (line != null) {
+                            line.flushedQuantity = snapshot.quantity;
+                        }
+                    }
+                }
+                if (itemIds != null) {
+                    itemIds.forEach((productId, itemId) -> {
+                        StoredCart.Line line = cart.linesByProductId.get(productId);
+                        if (line != null && line.id == null) {
+                            line.id = itemId;
+                        }
+                    });
+                }
+                cart.flushedGeneration = Math.max(cart.flushedGeneration, generation);
+            }
+        }
+    }
+
+    private static final class LineSnapshot {
+
+        private final Long productId;
+        private final int quantity;
+        private final BigDecimal unitPrice;
+        private final BigDecimal totalPrice;
+
+        private LineSnapshot(StoredCart.Line line) {
+            this.productId = line.productId;
+            this.quantity = line.quantity;
+            this.unitPrice = line.unitPrice;
+            this.totalPrice = line.totalPrice;
+        }
+    }
+}
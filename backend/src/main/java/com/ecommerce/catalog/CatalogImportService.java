@@ -0,0 +1,268 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.cache.CategoryTree;
+import com.ecommerce.cache.CategoryTreeCache;
+import com.ecommerce.dto.response.CatalogImportResponse;
+import com.ecommerce.dto.response.CategoryResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.idgen.IdBlockAllocator;
+import com.ecommerce.idgen.IdSequences;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Loads supplier product feeds in bulk. Records are converted, validated and slugified in
+ * parallel, deduplicated by slug and SKU against both the feed and the catalog, and written
+ * with JDBC batches: one batch each for products, images and tags per chunk of the feed.
+ * Product ids are reserved up front from the same pooled sequence JPA uses, so images and tags
+ * can be written without reading the new products back.
+ */
+@Service
+@Slf4j
+public class CatalogImportService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_PRODUCT = "INSERT INTO products (id, name, description, detailed_description, " +
+            "slug, price, sale_price, stock_quantity, sku, brand, status, is_featured, weight, dimensions, " +
+            "category_id, average_rating, review_count, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_IMAGE = "INSERT INTO product_images (product_id, image_url) VALUES (?, ?)";
+    private static final String INSERT_TAG = "INSERT INTO product_tags (product_id, tag) VALUES (?, ?)";
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final CategoryTreeCache categoryTreeCache;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IdBlockAllocator idBlockAllocator;
+
+    public CatalogImportService(ObjectMapper objectMapper,
+                                Validator validator,
+                                CategoryTreeCache categoryTreeCache,
+                                NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                IdBlockAllocator idBlockAllocator) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.categoryTreeCache = categoryTreeCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.idBlockAllocator = idBlockAllocator;
+    }
+
+    public CatalogImportResponse importFeed(InputStream input, ProductFeedParser.Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        CatalogImportResponse response = new CatalogImportResponse();
+
+        List<ProductFeedParser.FeedRecord> records = ProductFeedParser.parse(input, format);
+        response.setReceived(records.size());
+
+        CategoryTree categories = categoryTreeCache.get();
+        List<Candidate> candidates = records.parallelStream()
+                .map(record -> validate(record, categories))
+                .collect(Collectors.toList());
+
+        List<Candidate> accepted = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.error != null) {
+                response.setRejected(response.getRejected() + 1);
+                reportError(response, candidate.lineNumber, candidate.error);
+            } else {
+                accepted.add(candidate);
+            }
+        }
+
+        List<Candidate> unique = deduplicate(accepted, response);
+        for (int from = 0; from < unique.size(); from += BATCH_SIZE) {
+            List<Candidate> batch = unique.subList(from, Math.min(from + BATCH_SIZE, unique.size()));
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            response.setImported(response.getImported() + batch.size());
+        }
+
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        response.setDurationMs(elapsed);
+        response.setProductsPerSecond(response.getImported() * 1000.0 / elapsed);
+        log.info("Imported {} of {} products ({} duplicates, {} rejected) in {} ms, {} products/s",
+                response.getImported(), response.getReceived(), response.getDuplicates(), response.getRejected(),
+                elapsed, Math.round(response.getProductsPerSecond()));
+        return response;
+    }
+
+    private Candidate validate(ProductFeedParser.FeedRecord record, CategoryTree categories) {
+        ProductFeedRow row;
+        try {
+            row = record.toRow(objectMapper);
+        } catch (JsonProcessingException e) {
+            return Candidate.rejected(record.getLineNumber(), "Malformed record: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return Candidate.rejected(record.getLineNumber(), "Malformed record: " + e.getMessage());
+        }
+
+        Set<ConstraintViolation<ProductFeedRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return Candidate.rejected(record.getLineNumber(), violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        Optional<CategoryResponse> category = row.getCategoryId() != null ? categories.findById(row.getCategoryId())
+                : row.getCategorySlug() != null ? categories.findBySlug(row.getCategorySlug())
+                : Optional.empty();
+        if (category.isEmpty()) {
+            return Candidate.rejected(record.getLineNumber(), "Unknown or inactive category");
+        }
+
+        String slug = Slugs.slugify(row.getName());
+        if (slug.isEmpty()) {
+            return Candidate.rejected(record.getLineNumber(), "Product name does not produce a usable slug");
+        }
+        return new Candidate(record.getLineNumber(), row, slug, category.get().getId(), null);
+    }
+
+    // The first occurrence in the feed wins; anything already in the catalog is left untouched
+    private List<Candidate> deduplicate(List<Candidate> candidates, CatalogImportResponse response) {
+        Set<String> existingSlugs = findExisting("slug", candidates.stream()
+                .map(c -> c.slug).collect(Collectors.toSet()));
+        Set<String> existingSkus = findExisting("sku", candidates.stream()
+                .map(c -> c.row.getSku()).filter(Objects::nonNull).collect(Collectors.toSet()));
+
+        Set<String> seenSlugs = new HashSet<>(existingSlugs);
+        Set<String> seenSkus = new HashSet<>(existingSkus);
+        List<Candidate> unique = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            String sku = candidate.row.getSku();
+            String duplicate = seenSlugs.contains(candidate.slug) ? "Duplicate slug '" + candidate.slug + "'"
+                    : sku != null && seenSkus.contains(sku) ? "Duplicate SKU '" + sku + "'"
+                    : null;
+            if (duplicate != null) {
+                response.setDuplicates(response.getDuplicates() + 1);
+                reportError(response, candidate.lineNumber, duplicate);
+                continue;
+            }
+            seenSlugs.add(candidate.slug);
+            if (sku != null) {
+                seenSkus.add(sku);
+            }
+            unique.add(candidate);
+        }
+        return unique;
+    }
+
+    private Set<String> findExisting(String column, Collection<String> values) {
+        Set<String> existing = new HashSet<>();
+        List<String> all = new ArrayList<>(values);
+        for (int from = 0; from < all.size(); from += BATCH_SIZE) {
+            List<String> batch = all.subList(from, Math.min(from + BATCH_SIZE, all.size()));
+            existing.addAll(jdbcTemplate.queryForList(
+                    "SELECT " + column + " FROM products WHERE " + column + " IN (:values)",
+                    Map.of("values", batch), String.class));
+        }
+        return existing;
+    }
+
+    private void insert(List<Candidate> batch) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long firstId = idBlockAllocator.allocate(IdSequences.PRODUCTS, batch.size());
+        Map<Candidate, Long> ids = new IdentityHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            ids.put(batch.get(i), firstId + i);
+        }
+
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_PRODUCT, batch, batch.size(), (ps, candidate) -> {
+            ProductFeedRow row = candidate.row;
+            ps.setLong(1, ids.get(candidate));
+            ps.setString(2, row.getName());
+            ps.setString(3, row.getDescription());
+            ps.setString(4, row.getDetailedDescription());
+            ps.setString(5, candidate.slug);
+            ps.setBigDecimal(6, row.getPrice());
+            ps.setBigDecimal(7, row.getSalePrice());
+            ps.setInt(8, row.getStockQuantity());
+            ps.setString(9, row.getSku());
+            ps.setString(10, row.getBrand());
+            ps.setString(11, (row.getStatus() != null ? row.getStatus() : Product.ProductStatus.ACTIVE).name());
+            ps.setBoolean(12, Boolean.TRUE.equals(row.getFeatured()));
+            ps.setObject(13, row.getWeight(), Types.DOUBLE);
+            ps.setString(14, row.getDimensions());
+            ps.setLong(15, candidate.categoryId);
+            ps.setDouble(16, 0.0);
+            ps.setInt(17, 0);
+            ps.setTimestamp(18, now);
+            ps.setTimestamp(19, now);
+        });
+
+        List<Object[]> images = new ArrayList<>();
+        List<Object[]> tags = new ArrayList<>();
+        for (Candidate candidate : batch) {
+            Long productId = ids.get(candidate);
+            if (candidate.row.getImageUrls() != null) {
+                candidate.row.getImageUrls().forEach(url -> images.add(new Object[]{productId, url}));
+            }
+            if (candidate.row.getTags() != null) {
+                candidate.row.getTags().forEach(tag -> tags.add(new Object[]{productId, tag}));
+            }
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_IMAGE, images);
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_TAG, tags);
+
+        eventPublisher.publishEvent(new CatalogImportedEvent(new ArrayList<>(ids.values())));
+    }
+
+    private static void reportError(CatalogImportResponse response, int lineNumber, String message) {
+        if (response.getErrors().size() < MAX_REPORTED_ERRORS) {
+            response.getErrors().add(new CatalogImportResponse.RowError(lineNumber, message));
+        }
+    }
+
+    private static final class Candidate {
+
+        private final int lineNumber;
+        private final ProductFeedRow row;
+        private final String slug;
+        private final Long categoryId;
+        private final String error;
+
+        private Candidate(int lineNumber, ProductFeedRow row, String slug, Long categoryId, String error) {
+            this.lineNumber = lineNumber;
+            this.row = row;
+            this.slug = slug;
+            this.categoryId = categoryId;
+            this.error = error;
+        }
+
+        private static Candidate rejected(int lineNumber, String error) {
+            return new Candidate(lineNumber, null, null, null, error);
+        }
+    }
+}
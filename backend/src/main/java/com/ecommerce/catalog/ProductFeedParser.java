@@ -0,0 +1,185 @@
+package com.ecommerce.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Splits a product feed into records without interpreting them, so the costly part of
+ * parsing (JSON decoding, type conversion) can be done by the caller in parallel.
+ */
+public final class ProductFeedParser {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private static final Set<String> MULTI_VALUED_COLUMNS = Set.of("imageUrls", "tags");
+    private static final Pattern VALUE_SEPARATOR = Pattern.compile("\\|");
+
+    private ProductFeedParser() {
+    }
+
+    public static List<FeedRecord> parse(InputStream input, Format format) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        return format == Format.CSV ? parseCsv(reader) : parseNdjson(reader);
+    }
+
+    private static List<FeedRecord> parseNdjson(BufferedReader reader) throws IOException {
+        List<FeedRecord> records = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!line.isBlank()) {
+                records.add(new FeedRecord(lineNumber, line, null));
+            }
+        }
+        return records;
+    }
+
+    private static List<FeedRecord> parseCsv(Reader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return List.of();
+        }
+        header = header.stream().map(String::trim).collect(Collectors.toList());
+
+        List<FeedRecord> records = new ArrayList<>();
+        List<String> values;
+        while ((values = csv.next()) != null) {
+            if (values.size() == 1 && values.get(0).isBlank()) {
+                continue;
+            }
+            Map<String, Object> fields = new HashMap<>();
+            for (int i = 0; i < header.size() && i < values.size(); i++) {
+                String value = values.get(i).trim();
+                if (value.isEmpty()) {
+                    continue;
+                }
+                String column = header.get(i);
+                fields.put(column, MULTI_VALUED_COLUMNS.contains(column)
+                        ? Arrays.stream(VALUE_SEPARATOR.split(value)).map(String::trim)
+                                .filter(v -> !v.isEmpty()).collect(Collectors.toList())
+                        : value);
+            }
+            records.add(new FeedRecord(csv.recordStartLine, null, fields));
+        }
+        return records;
+    }
+
+    /**
+     * A raw feed record: either one NDJSON line or the named columns of one CSV record.
+     */
+    @Getter
+    public static final class FeedRecord {
+
+        private final int lineNumber;
+        private final String json;
+        private final Map<String, Object> columns;
+
+        private FeedRecord(int lineNumber, String json, Map<String, Object> columns) {
+            this.lineNumber = lineNumber;
+            this.json = json;
+            this.columns = columns;
+        }
+
+        public ProductFeedRow toRow(ObjectMapper objectMapper) throws JsonProcessingException {
+            return json != null
+                    ? objectMapper.readValue(json, ProductFeedRow.class)
+                    : objectMapper.convertValue(columns, ProductFeedRow.class);
+        }
+    }
+
+    // RFC 4180: quoted fields may contain separators, doubled quotes and line breaks
+    private static final class CsvReader {
+
+        private final Reader reader;
+        private int line = 1;
+        private int recordStartLine;
+        private int pending = -2;
+
+        private CsvReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        private List<String> next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            recordStartLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field starting on line " + recordStartLine);
+                    }
+                    if (c == '"') {
+                        int following = read();
+                        if (following == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            c = following;
+                            continue;
+                        }
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pending = following;
+                    }
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+        }
+
+        private int read() throws IOException {
+            int c;
+            if (pending != -2) {
+                c = pending;
+                pending = -2;
+            } else {
+                c = reader.read();
+            }
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.entity.Product;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One product of a supplier feed. CSV columns and NDJSON fields use these property names;
+ * in CSV, {@code imageUrls} and {@code tags} hold several values separated by {@code |}.
+ * The category may be given either by id or by slug.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductFeedRow {
+
+    @NotBlank(message = "Product name is required")
+    private String name;
+
+    @Size(max = 1000, message = "Description cannot exceed 1000 characters")
+    private String description;
+
+    @Size(max = 2000, message = "Detailed description cannot exceed 2000 characters")
+    private String detailedDescription;
+
+    @NotNull(message = "Price is required")
+    @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than zero")
+    private BigDecimal price;
+
+    @DecimalMin(value = "0.0", inclusive = false, message = "Sale price must be greater than zero")
+    private BigDecimal salePrice;
+
+    @NotNull(message = "Stock quantity is required")
+    @Min(value = 0, message = "Stock quantity cannot be negative")
+    private Integer stockQuantity;
+
+    private String sku;
+
+    private String brand;
+
+    private Long categoryId;
+
+    private String categorySlug;
+
+    private Boolean featured;
+
+    private Double weight;
+
+    private String dimensions;
+
+    private List<String> imageUrls;
+
+    private List<String> tags;
+
+    private Product.ProductStatus status;
+}
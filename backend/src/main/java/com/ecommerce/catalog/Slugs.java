@@ -0,0 +1,25 @@
+package com.ecommerce.catalog;
+
+import java.util.regex.Pattern;
+
+/**
+ * URL slugs for products and categories. The patterns are compiled once rather than on every
+ * {@code String.replaceAll} call, which matters when a feed slugifies thousands of names.
+ */
+public final class Slugs {
+
+    private static final Pattern DISALLOWED = Pattern.compile("[^a-z0-9\\s-]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern REPEATED_HYPHENS = Pattern.compile("-+");
+    private static final Pattern EDGE_HYPHENS = Pattern.compile("^-|-$");
+
+    private Slugs() {
+    }
+
+    public static String slugify(String name) {
+        String slug = DISALLOWED.matcher(name.toLowerCase()).replaceAll("");
+        slug = WHITESPACE.matcher(slug).replaceAll("-");
+        slug = REPEATED_HYPHENS.matcher(slug).replaceAll("-");
+        return EDGE_HYPHENS.matcher(slug).replaceAll("");
+    }
+}
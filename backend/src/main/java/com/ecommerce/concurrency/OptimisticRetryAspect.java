@@ -0,0 +1,91 @@
+package com.ecommerce.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries {@link RetryOnConflict} methods with jittered exponential backoff when their
+ * transaction fails an optimistic lock check. The aspect runs outside the transaction
+ * interceptor, so every attempt starts a new transaction and reads current rows. A method
+ * called from inside another transaction is not retried on its own; the conflict surfaces to
+ * the outermost retrying caller, since the rolled-back transaction can't be resumed.
+ *
+ * Metrics, tagged by operation: {@code optimistic.lock.calls}, {@code optimistic.lock.conflicts}
+ * and {@code optimistic.lock.exhausted}; the conflict rate is conflicts over calls.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class OptimisticRetryAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetryAspect(MeterRegistry meterRegistry,
+                                 @Value("${app.retry.optimistic.max-attempts:4}") int maxAttempts,
+                                 @Value("${app.retry.optimistic.initial-backoff:PT0.02S}") Duration initialBackoff,
+                                 @Value("${app.retry.optimistic.max-backoff:PT0.5S}") Duration maxBackoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.initialBackoffMillis = Math.max(initialBackoff.toMillis(), 1);
+        this.maxBackoffMillis = Math.max(maxBackoff.toMillis(), this.initialBackoffMillis);
+    }
+
+    @Around("@annotation(com.ecommerce.concurrency.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        counter("optimistic.lock.calls", operation).increment();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                counter("optimistic.lock.conflicts", operation).increment();
+                if (attempt >= maxAttempts) {
+                    counter("optimistic.lock.exhausted", operation).increment();
+                    log.warn("{} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt);
+                log.debug("{} lost an optimistic lock race, retrying in {} ms (attempt {})",
+                        operation, backoff, attempt + 1);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    // Randomized within the upper half of the window so competing writers don't retry in lockstep
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private Counter counter(String name, String operation) {
+        return meterRegistry.counter(name, "operation", operation);
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs a transactional service method, in a fresh transaction, when it loses an optimistic
+ * lock race on a versioned entity. The method must be safe to repeat from the start: everything
+ * it does goes through the transaction being rolled back, and it re-reads what it changes.
+ * See {@link OptimisticRetryAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,32 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.catalog.CatalogImportService;
+import com.ecommerce.catalog.ProductFeedParser;
+import com.ecommerce.dto.response.CatalogImportResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/admin/catalog")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000"})
+public class AdminCatalogController {
+    
+    private final CatalogImportService catalogImportService;
+    
+    @PostMapping("/import")
+    public ResponseEntity<CatalogImportResponse> importProducts(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(defaultValue = "CSV") ProductFeedParser.Format format) throws IOException {
+        
+        try (InputStream input = file.getInputStream()) {
+            CatalogImportResponse response = catalogImportService.importFeed(input, format);
+            return ResponseEntity.ok(response);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.inventory.LowStockMonitor;
+import com.ecommerce.inventory.ShardedStockService;
+import com.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/inventory")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000"})
+public class AdminInventoryController {
+    
+    private final ShardedStockService shardedStockService;
+    private final LowStockMonitor lowStockMonitor;
+    private final ProductService productService;
+    
+    // For products expected to sell out under heavy concurrent checkout, e.g. flash-sale items
+    @PutMapping("/{productId}/shards")
+    public ResponseEntity<Void> enableShardedStock(
+            @PathVariable Long productId,
+            @RequestParam(defaultValue = "8") int slots) {
+        
+        shardedStockService.enable(productId, slots);
+        return ResponseEntity.ok().build();
+    }
+    
+    @DeleteMapping("/{productId}/shards")
+    public ResponseEntity<Void> disableShardedStock(@PathVariable Long productId) {
+        shardedStockService.disable(productId);
+        return ResponseEntity.ok().build();
+    }
+    
+    @GetMapping("/low-stock")
+    public ResponseEntity<Page<ProductResponse>> getLowStockProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        return ResponseEntity.ok(productService.getLowStockProducts(page, size));
+    }
+    
+    // Omitting the threshold falls back to the category's, then the default
+    @PutMapping("/low-stock/products/{productId}")
+    public ResponseEntity<Void> setProductLowStockThreshold(
+            @PathVariable Long productId,
+            @RequestParam(required = false) Integer threshold) {
+        
+        lowStockMonitor.setProductThreshold(productId, threshold);
+        return ResponseEntity.ok().build();
+    }
+    
+    @PutMapping("/low-stock/categories/{categoryId}")
+    public ResponseEntity<Void> setCategoryLowStockThreshold(
+            @PathVariable Long categoryId,
+            @RequestParam(required = false) Integer threshold) {
+        
+        lowStockMonitor.setCategoryThreshold(categoryId, threshold);
+        return ResponseEntity.ok().build();
+    }
+}
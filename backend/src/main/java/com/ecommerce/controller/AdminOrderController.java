@@ -0,0 +1,34 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.request.OrderExportRequest;
+import com.ecommerce.service.OrderExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/admin/orders")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000"})
+public class AdminOrderController {
+    
+    private final OrderExportService orderExportService;
+    
+    // Streams every matching order instead of building one list in memory
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(OrderExportRequest request) {
+        boolean csv = request.getFormat() == OrderExportRequest.Format.CSV;
+        String filename = "orders." + (csv ? "csv" : "ndjson") + (request.isGzip() ? ".gz" : "");
+        MediaType contentType = request.isGzip() ? MediaType.parseMediaType("application/gzip")
+                : csv ? MediaType.parseMediaType("text/csv") : MediaType.APPLICATION_NDJSON;
+        
+        StreamingResponseBody body = outputStream -> orderExportService.export(request, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(contentType)
+                .body(body);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.response.UserResponse;
+import com.ecommerce.entity.User;
+import com.ecommerce.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/users")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:3000"})
+public class AdminUserController {
+    
+    private final UserService userService;
+    
+    @PutMapping("/{id}/role")
+    public ResponseEntity<UserResponse> changeRole(@PathVariable Long id, @RequestParam User.UserRole role) {
+        return ResponseEntity.ok(userService.changeRole(id, role));
+    }
+}
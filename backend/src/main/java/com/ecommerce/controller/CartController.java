@@ -1,6 +1,7 @@
 package com.ecommerce.controller;
 
 import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.dto.response.AvailabilityResponse;
 import com.ecommerce.dto.response.CartResponse;
 import com.ecommerce.service.CartService;
 import jakarta.validation.Valid;
@@ -23,6 +24,11 @@ public class CartController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> checkAvailability(@RequestHeader("Firebase-UID") String firebaseUid) {
+        return ResponseEntity.ok(cartService.checkAvailability(firebaseUid));
+    }
+    
     @PostMapping("/add")
     public ResponseEntity<CartResponse> addToCart(
             @RequestHeader("Firebase-UID") String firebaseUid,
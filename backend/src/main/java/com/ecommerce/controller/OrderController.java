@@ -1,14 +1,23 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.admission.CheckoutAdmissionQueue;
 import com.ecommerce.dto.request.CreateOrderRequest;
+import com.ecommerce.dto.response.AdmissionTicketResponse;
+import com.ecommerce.dto.response.CheckoutHoldResponse;
+import com.ecommerce.dto.response.CursorPage;
 import com.ecommerce.dto.response.OrderResponse;
 import com.ecommerce.entity.Order;
+import com.ecommerce.inventory.ReservationService;
 import com.ecommerce.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -19,16 +28,61 @@ import java.util.List;
 public class OrderController {
     
     private final OrderService orderService;
+    private final ReservationService reservationService;
+    private final CheckoutAdmissionQueue admissionQueue;
     
+    // Answers 429 with a queue ticket when checkout is at capacity; retry with the ticket once it is admitted
     @PostMapping
-    public ResponseEntity<OrderResponse> createOrder(
+    public ResponseEntity<?> createOrder(
             @RequestHeader("Firebase-UID") String firebaseUid,
+            @RequestHeader(value = "Admission-Ticket", required = false) String ticketId,
             @Valid @RequestBody CreateOrderRequest request) {
         
-        OrderResponse response = orderService.createOrder(firebaseUid, request);
+        if (!admissionQueue.tryEnter(firebaseUid, ticketId)) {
+            AdmissionTicketResponse ticket = admissionQueue.issue(firebaseUid);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(ticket.getEstimatedWaitSeconds(), 1)))
+                    .body(ticket);
+        }
+        try {
+            OrderResponse response = orderService.createOrder(firebaseUid, request);
+            return ResponseEntity.ok(response);
+        } finally {
+            admissionQueue.exit();
+        }
+    }
+    
+    @PostMapping("/checkout/queue")
+    public ResponseEntity<AdmissionTicketResponse> joinCheckoutQueue(@RequestHeader("Firebase-UID") String firebaseUid) {
+        return ResponseEntity.ok(admissionQueue.issue(firebaseUid));
+    }
+    
+    @GetMapping("/checkout/queue/{ticketId}")
+    public ResponseEntity<AdmissionTicketResponse> getCheckoutQueueTicket(@PathVariable String ticketId) {
+        return admissionQueue.getTicket(ticketId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping(value = "/checkout/queue/{ticketId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamCheckoutQueueTicket(@PathVariable String ticketId) {
+        return admissionQueue.subscribe(ticketId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/checkout/hold")
+    public ResponseEntity<CheckoutHoldResponse> holdCart(@RequestHeader("Firebase-UID") String firebaseUid) {
+        CheckoutHoldResponse response = reservationService.holdCart(firebaseUid);
         return ResponseEntity.ok(response);
     }
     
+    @DeleteMapping("/checkout/hold")
+    public ResponseEntity<Void> releaseHold(@RequestHeader("Firebase-UID") String firebaseUid) {
+        reservationService.releaseHold(firebaseUid);
+        return ResponseEntity.ok().build();
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id) {
         return orderService.getOrderById(id)
@@ -53,6 +107,16 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/user/scroll")
+    public ResponseEntity<CursorPage<OrderResponse>> scrollUserOrders(
+            @RequestHeader("Firebase-UID") String firebaseUid,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<OrderResponse> orders = orderService.scrollUserOrders(firebaseUid, cursor, size);
+        return ResponseEntity.ok(orders);
+    }
+    
     @GetMapping
     public ResponseEntity<List<OrderResponse>> getAllOrders() {
         List<OrderResponse> orders = orderService.getAllOrders();
@@ -69,6 +133,16 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
     
+    @GetMapping("/status/{status}/scroll")
+    public ResponseEntity<CursorPage<OrderResponse>> scrollOrdersByStatus(
+            @PathVariable Order.OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        CursorPage<OrderResponse> orders = orderService.scrollOrdersByStatus(status, cursor, size);
+        return ResponseEntity.ok(orders);
+    }
+    
     @PutMapping("/{id}/status")
     public ResponseEntity<OrderResponse> updateOrderStatus(
             @PathVariable Long id,
@@ -1,14 +1,23 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.dto.request.FacetedSearchRequest;
+import com.ecommerce.dto.response.AvailabilityResponse;
+import com.ecommerce.dto.response.CursorPage;
+import com.ecommerce.dto.response.FacetedSearchResponse;
 import com.ecommerce.dto.response.ProductResponse;
 import com.ecommerce.service.ProductService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/products")
@@ -16,6 +25,9 @@ import java.util.List;
 @CrossOrigin(origins = {"http://localhost:3000"})
 public class ProductController {
     
+    // The availability check is public, so one request can only ask about this many products
+    private static final int MAX_AVAILABILITY_PRODUCTS = 100;
+    
     private final ProductService productService;
     
     @GetMapping
@@ -29,17 +41,41 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ProductResponse>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        
+        CursorPage<ProductResponse> products = productService.scrollProducts(cursor, size, sortBy, sortDir);
+        return ResponseEntity.ok(products);
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(product -> ResponseEntity.ok(product))
+    public ResponseEntity<byte[]> getProductById(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.getSerializedProductById(id)
+                .map(product -> product.toResponseEntity(ifNoneMatch))
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Body maps product ids to requested quantities
+    @PostMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> checkAvailability(@RequestBody Map<Long, Integer> quantities) {
+        if (quantities.size() > MAX_AVAILABILITY_PRODUCTS) {
+            throw new RuntimeException("At most " + MAX_AVAILABILITY_PRODUCTS + " products can be checked at once");
+        }
+        return ResponseEntity.ok(productService.checkAvailability(quantities));
+    }
+    
     @GetMapping("/slug/{slug}")
-    public ResponseEntity<ProductResponse> getProductBySlug(@PathVariable String slug) {
-        return productService.getProductBySlug(slug)
-                .map(product -> ResponseEntity.ok(product))
+    public ResponseEntity<byte[]> getProductBySlug(
+            @PathVariable String slug,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.getSerializedProductBySlug(slug)
+                .map(product -> product.toResponseEntity(ifNoneMatch))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -64,13 +100,28 @@ public class ProductController {
     @GetMapping("/search")
     public ResponseEntity<Page<ProductResponse>> searchProducts(
             @RequestParam String keyword,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "12") @Min(1) @Max(100) int size) {
         
         Page<ProductResponse> products = productService.searchProducts(keyword, page, size);
         return ResponseEntity.ok(products);
     }
     
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> getSuggestions(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") @Min(1) @Max(100) int limit) {
+        
+        List<String> suggestions = productService.getSuggestions(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+    
+    @GetMapping("/faceted-search")
+    public ResponseEntity<FacetedSearchResponse> facetedSearch(@Valid FacetedSearchRequest request) {
+        FacetedSearchResponse response = productService.facetedSearch(request);
+        return ResponseEntity.ok(response);
+    }
+    
     @GetMapping("/filter/price")
     public ResponseEntity<Page<ProductResponse>> getProductsByPriceRange(
             @RequestParam BigDecimal minPrice,
@@ -0,0 +1,40 @@
+package com.ecommerce.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class FacetedSearchRequest {
+
+    // Values within one facet are OR'd, facets are AND'd together
+    private List<String> brand;
+
+    private List<Long> categoryId;
+
+    @DecimalMin(value = "0.0", message = "Minimum price cannot be negative")
+    private BigDecimal minPrice;
+
+    @DecimalMin(value = "0.0", message = "Maximum price cannot be negative")
+    private BigDecimal maxPrice;
+
+    @DecimalMin(value = "0.0", message = "Minimum rating cannot be negative")
+    @DecimalMax(value = "5.0", message = "Minimum rating cannot exceed 5")
+    private Double minRating;
+
+    private String sortBy = "createdAt";
+
+    private String sortDir = "desc";
+
+    @Min(value = 0, message = "Page cannot be negative")
+    private int page = 0;
+
+    @Min(value = 1, message = "Size must be at least 1")
+    @Max(value = 100, message = "Size cannot exceed 100")
+    private int size = 12;
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.dto.request;
+
+import com.ecommerce.entity.Order;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+@Data
+public class OrderExportRequest {
+
+    private Format format = Format.NDJSON;
+
+    private boolean gzip;
+
+    // Both dates are inclusive and refer to the order's creation date
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private Order.OrderStatus status;
+
+    public enum Format {
+        NDJSON, CSV
+    }
+}
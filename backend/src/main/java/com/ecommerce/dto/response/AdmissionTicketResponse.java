@@ -0,0 +1,28 @@
+package com.ecommerce.dto.response;
+
+import com.ecommerce.admission.AdmissionTicket;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Data
+public class AdmissionTicketResponse {
+    private String ticketId;
+    private AdmissionTicket.Status status;
+    private long position;
+    private long estimatedWaitSeconds;
+    private LocalDateTime admittedUntil;
+    
+    public static AdmissionTicketResponse fromTicket(AdmissionTicket ticket, long position, long estimatedWaitSeconds) {
+        AdmissionTicketResponse response = new AdmissionTicketResponse();
+        response.setTicketId(ticket.getTicketId());
+        response.setStatus(ticket.getStatus());
+        response.setPosition(position);
+        response.setEstimatedWaitSeconds(estimatedWaitSeconds);
+        if (ticket.getAdmittedUntil() != null) {
+            response.setAdmittedUntil(LocalDateTime.ofInstant(ticket.getAdmittedUntil(), ZoneId.systemDefault()));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,19 @@
+package com.ecommerce.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AvailabilityResponse {
+    private boolean available;
+    private List<Line> lines;
+    
+    @Data
+    public static class Line {
+        private Long productId;
+        private Integer requestedQuantity;
+        private Integer availableQuantity;
+        private boolean available;
+    }
+}
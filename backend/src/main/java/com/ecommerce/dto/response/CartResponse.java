@@ -7,6 +7,7 @@ import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Data
@@ -31,14 +32,17 @@ public class CartResponse {
         private boolean isAvailable;
         
         public static CartItemResponse fromEntity(CartItem cartItem) {
+            List<String> imageUrls = cartItem.getProduct().getImageUrls();
+            return fromEntity(cartItem, imageUrls != null && !imageUrls.isEmpty() ? imageUrls.get(0) : null);
+        }
+        
+        public static CartItemResponse fromEntity(CartItem cartItem, String productImageUrl) {
             CartItemResponse response = new CartItemResponse();
             response.setId(cartItem.getId());
             response.setProductId(cartItem.getProduct().getId());
             response.setProductName(cartItem.getProduct().getName());
             response.setProductSlug(cartItem.getProduct().getSlug());
-            if (cartItem.getProduct().getImageUrls() != null && !cartItem.getProduct().getImageUrls().isEmpty()) {
-                response.setProductImageUrl(cartItem.getProduct().getImageUrls().get(0));
-            }
+            response.setProductImageUrl(productImageUrl);
             response.setUnitPrice(cartItem.getUnitPrice());
             response.setQuantity(cartItem.getQuantity());
             response.setTotalPrice(cartItem.getTotalPrice());
@@ -55,10 +59,27 @@ public class CartResponse {
                     .map(CartItemResponse::fromEntity)
                     .collect(Collectors.toList()));
         }
+        setSummary(response, cart);
+        return response;
+    }
+    
+    // Takes each product's first image from the caller rather than loading every image collection
+    public static CartResponse fromEntity(Cart cart, Map<Long, String> productImageUrls) {
+        CartResponse response = new CartResponse();
+        response.setId(cart.getId());
+        if (cart.getItems() != null) {
+            response.setItems(cart.getItems().stream()
+                    .map(item -> CartItemResponse.fromEntity(item, productImageUrls.get(item.getProduct().getId())))
+                    .collect(Collectors.toList()));
+        }
+        setSummary(response, cart);
+        return response;
+    }
+    
+    private static void setSummary(CartResponse response, Cart cart) {
         response.setTotalAmount(cart.getTotalAmount());
         response.setTotalItems(cart.getTotalItems());
         response.setCreatedAt(cart.getCreatedAt());
         response.setUpdatedAt(cart.getUpdatedAt());
-        return response;
     }
 }
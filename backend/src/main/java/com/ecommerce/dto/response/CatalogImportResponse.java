@@ -0,0 +1,28 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class CatalogImportResponse {
+    private int received;
+    private int imported;
+    private int duplicates;
+    private int rejected;
+    // Capped, so a badly broken feed doesn't produce an enormous report
+    private List<RowError> errors = new ArrayList<>();
+    private long durationMs;
+    private double productsPerSecond;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int line;
+        private String message;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.dto.response;
+
+import com.ecommerce.inventory.StockHold;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+public class CheckoutHoldResponse {
+    private String holdId;
+    private LocalDateTime expiresAt;
+    private List<Item> items;
+    
+    @Data
+    public static class Item {
+        private Long productId;
+        private Integer quantity;
+    }
+    
+    public static CheckoutHoldResponse fromHold(StockHold hold) {
+        CheckoutHoldResponse response = new CheckoutHoldResponse();
+        response.setHoldId(hold.getHoldId());
+        response.setExpiresAt(LocalDateTime.ofInstant(hold.getExpiresAt(), ZoneId.systemDefault()));
+        response.setItems(hold.getLines().stream()
+                .map(line -> {
+                    Item item = new Item();
+                    item.setProductId(line.getProductId());
+                    item.setQuantity(line.getQuantity());
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        return response;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.dto.response;
+
+import com.ecommerce.pagination.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+
+// A slice of a keyset-paginated listing; there is deliberately no total count
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    
+    public static <T> CursorPage<T> of(Window<?> window, List<T> content) {
+        String nextCursor = window.hasNext() ? KeysetCursor.encode(window.positionAt(window.size() - 1)) : null;
+        return new CursorPage<>(content, content.size(), window.hasNext(), nextCursor);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ecommerce.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class FacetedSearchResponse {
+    private Page<ProductResponse> products;
+
+    // Each facet is counted with every other active filter applied but its own,
+    // so the storefront can show how many results selecting another value would add
+    private Map<String, Long> brands;
+    private Map<Long, Long> categories;
+    private List<PriceRangeCount> priceRanges;
+    private Map<Integer, Long> ratings;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRangeCount {
+        private BigDecimal minPrice;
+        private BigDecimal maxPrice;
+        private long count;
+    }
+}
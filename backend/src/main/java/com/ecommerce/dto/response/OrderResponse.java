@@ -75,12 +75,17 @@ public class OrderResponse {
     }
     
     public static OrderResponse fromEntity(Order order) {
+        return fromEntity(order, order.getItems());
+    }
+    
+    // For callers that loaded the items of many orders in bulk rather than through the lazy association
+    public static OrderResponse fromEntity(Order order, List<OrderItem> items) {
         OrderResponse response = new OrderResponse();
         response.setId(order.getId());
         response.setOrderNumber(order.getOrderNumber());
         
-        if (order.getItems() != null) {
-            response.setItems(order.getItems().stream()
+        if (items != null) {
+            response.setItems(items.stream()
                     .map(OrderItemResponse::fromEntity)
                     .collect(Collectors.toList()));
         }
@@ -53,6 +53,11 @@ public class ProductResponse {
     }
     
     public static ProductResponse fromEntity(Product product) {
+        return fromEntity(product, product.getImageUrls(), product.getTags());
+    }
+    
+    // For callers that loaded the element collections in bulk rather than through the lazy associations
+    public static ProductResponse fromEntity(Product product, List<String> imageUrls, List<String> tags) {
         ProductResponse response = new ProductResponse();
         response.setId(product.getId());
         response.setName(product.getName());
@@ -68,8 +73,8 @@ public class ProductResponse {
         response.setFeatured(product.isFeatured());
         response.setWeight(product.getWeight());
         response.setDimensions(product.getDimensions());
-        response.setImageUrls(product.getImageUrls());
-        response.setTags(product.getTags());
+        response.setImageUrls(imageUrls);
+        response.setTags(tags);
         response.setCategory(CategoryResponse.fromEntity(product.getCategory()));
         response.setAverageRating(product.getAverageRating());
         response.setReviewCount(product.getReviewCount());
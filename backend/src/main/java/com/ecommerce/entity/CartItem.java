@@ -1,11 +1,17 @@
 package com.ecommerce.entity;
 
+import com.ecommerce.idgen.IdSequences;
+import com.ecommerce.idgen.PooledIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -18,15 +24,23 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class CartItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "cart_item_ids")
+    @GenericGenerator(name = "cart_item_ids", type = PooledIdGenerator.class,
+            parameters = @Parameter(name = PooledIdGenerator.SEGMENT_VALUE_PARAM, value = IdSequences.CART_ITEMS))
     private Long id;
 
+    // Left out of equals/hashCode: Hibernate hashes the lines when it dirty-checks a loaded cart, and
+    // following these would load lazy proxies and loop through cart -> user -> cart
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cart_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Cart cart;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
     private Product product;
 
     @Column(nullable = false)
@@ -46,6 +60,10 @@ public class CartItem {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @PrePersist
     @PreUpdate
     private void calculateTotalPrice() {
@@ -40,6 +40,10 @@ public class Category {
     @Column
     private Integer sortOrder = 0;
 
+    // Applies to the category's products that don't set their own; the app default applies otherwise
+    @Column
+    private Integer lowStockThreshold;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
     private Category parent;
@@ -1,11 +1,15 @@
 package com.ecommerce.entity;
 
+import com.ecommerce.idgen.IdSequences;
+import com.ecommerce.idgen.PooledIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -19,7 +23,9 @@ import java.util.List;
 @AllArgsConstructor
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_ids")
+    @GenericGenerator(name = "order_ids", type = PooledIdGenerator.class,
+            parameters = @Parameter(name = PooledIdGenerator.SEGMENT_VALUE_PARAM, value = IdSequences.ORDERS))
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -120,6 +126,10 @@ public class Order {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public enum OrderStatus {
         PENDING, CONFIRMED, PROCESSING, SHIPPED, DELIVERED, CANCELLED
     }
@@ -1,11 +1,15 @@
 package com.ecommerce.entity;
 
+import com.ecommerce.idgen.IdSequences;
+import com.ecommerce.idgen.PooledIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -17,7 +21,9 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_item_ids")
+    @GenericGenerator(name = "order_item_ids", type = PooledIdGenerator.class,
+            parameters = @Parameter(name = PooledIdGenerator.SEGMENT_VALUE_PARAM, value = IdSequences.ORDER_ITEMS))
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
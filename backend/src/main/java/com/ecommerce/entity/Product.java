@@ -1,5 +1,7 @@
 package com.ecommerce.entity;
 
+import com.ecommerce.idgen.IdSequences;
+import com.ecommerce.idgen.PooledIdGenerator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -9,6 +11,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -22,7 +26,9 @@ import java.util.List;
 @AllArgsConstructor
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "product_ids")
+    @GenericGenerator(name = "product_ids", type = PooledIdGenerator.class,
+            parameters = @Parameter(name = PooledIdGenerator.SEGMENT_VALUE_PARAM, value = IdSequences.PRODUCTS))
     private Long id;
 
     @Column(nullable = false)
@@ -50,6 +56,15 @@ public class Product {
     @Min(value = 0, message = "Stock quantity cannot be negative")
     private Integer stockQuantity;
 
+    // Overrides the category's low-stock threshold when set
+    @Column
+    @Min(value = 0, message = "Low stock threshold cannot be negative")
+    private Integer lowStockThreshold;
+
+    // Counter slots holding the stock while it is sharded, null otherwise; only ShardedStockService writes it
+    @Column(insertable = false, updatable = false)
+    private Integer stockSlots;
+
     @Column
     private String sku;
 
@@ -89,10 +104,11 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> orderItems;
 
-    @Column
+    // Keyset pagination sorts on these, so they must never be null
+    @Column(nullable = false)
     private Double averageRating = 0.0;
 
-    @Column
+    @Column(nullable = false)
     private Integer reviewCount = 0;
 
     @CreationTimestamp
@@ -102,6 +118,12 @@ public class Product {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    // Rows written before this column existed are migrated with version 0. Null until the product is
+    // first saved: Spring Data takes an entity with a version for an existing one and merges it
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     public enum ProductStatus {
         ACTIVE, INACTIVE, OUT_OF_STOCK
     }
@@ -0,0 +1,32 @@
+package com.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+/**
+ * One counter slot of a product whose stock is sharded. While a product has slots, they hold
+ * its stock and {@code Product.stockQuantity} trails their sum.
+ */
+@Entity
+@Table(name = "product_stock_shards", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_stock_shards_slot", columnNames = {"product_id", "slot"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockShard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer slot;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Published by the bulk catalog import for each batch of products it inserts. Listeners
+ * index the batch in one pass instead of receiving a {@link ProductChangedEvent} per product.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CatalogImportedEvent {
+
+    private final List<Long> productIds;
+}
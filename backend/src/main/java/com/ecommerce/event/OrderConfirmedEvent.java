@@ -0,0 +1,22 @@
+package com.ecommerce.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Published by {@code OrderService} when an order moves to confirmed, whether its payment
+ * settled or an admin confirmed it. Carries what notifications and analytics need so they
+ * don't read the order back.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderConfirmedEvent {
+
+    private final Long orderId;
+    private final String orderNumber;
+    private final String firebaseUid;
+    private final BigDecimal totalAmount;
+    private final int itemCount;
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by {@code OrderService} once an order has been accepted: persisted as pending with
+ * its stock taken. Payment and everything after it runs off the back of this event.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderPlacedEvent {
+
+    private final Long orderId;
+}
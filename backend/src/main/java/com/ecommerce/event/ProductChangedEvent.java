@@ -0,0 +1,34 @@
+package com.ecommerce.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by {@code ProductService} whenever a product is written. Listeners that keep
+ * in-memory views of the catalog should react after the surrounding transaction commits.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ProductChangedEvent {
+
+    private final Long productId;
+    private final ChangeType type;
+
+    // Catalog membership before and after the write, for listeners keeping running aggregates
+    private final Long previousCategoryId;
+    private final boolean previouslyActive;
+    private final Long categoryId;
+    private final boolean active;
+
+    // Stock after the write, so stock views can follow checkouts without reading the product back
+    private final int stockQuantity;
+
+    // Stock moved without the product entering or leaving the active catalog
+    public boolean isStockOnly() {
+        return type == ChangeType.STOCK_CHANGED;
+    }
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED, STATUS_CHANGED, STOCK_CHANGED
+    }
+}
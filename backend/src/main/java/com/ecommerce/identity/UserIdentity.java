@@ -0,0 +1,24 @@
+package com.ecommerce.identity;
+
+import com.ecommerce.entity.User;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Who a Firebase UID belongs to, without loading the {@link User} entity and its associations.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class UserIdentity {
+
+    private final Long userId;
+    private final String firebaseUid;
+    private final User.UserRole role;
+    private final boolean active;
+
+    public boolean isAdmin() {
+        return role == User.UserRole.ADMIN;
+    }
+}
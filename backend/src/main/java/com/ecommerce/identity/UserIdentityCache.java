@@ -0,0 +1,94 @@
+package com.ecommerce.identity;
+
+import com.ecommerce.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Resolves the Firebase UID every authenticated call carries to a {@link UserIdentity}. A
+ * resolved identity is remembered for the rest of the request, so a request looks its user up
+ * at most once, and in a bounded cache shared by all requests. {@code UserService} invalidates
+ * an entry when it activates, deactivates or changes the role of the user; the TTL bounds how
+ * long changes made by another instance go unnoticed. Unknown UIDs are never cached, so a user
+ * can be used as soon as they register. Hit, miss and eviction counts are published through
+ * Micrometer as the {@code users.identity} cache.
+ */
+@Component
+public class UserIdentityCache {
+
+    private static final String REQUEST_ATTRIBUTE = UserIdentity.class.getName() + ":";
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Cache<String, UserIdentity> identities;
+
+    public UserIdentityCache(UserRepository userRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cache.identities.maximum-size:100000}") long maximumSize,
+                             @Value("${app.cache.identities.ttl:PT5M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.identities = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, identities, "users.identity");
+    }
+
+    public Optional<UserIdentity> find(String firebaseUid) {
+        if (firebaseUid == null) {
+            return Optional.empty();
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        String attribute = REQUEST_ATTRIBUTE + firebaseUid;
+        if (request != null && request.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST) instanceof UserIdentity identity) {
+            return Optional.of(identity);
+        }
+
+        UserIdentity identity = identities.get(firebaseUid, key -> readOnlyTransaction.execute(status ->
+                userRepository.findIdentityByFirebaseUid(key).orElse(null)));
+        if (identity != null && request != null) {
+            request.setAttribute(attribute, identity, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.ofNullable(identity);
+    }
+
+    public UserIdentity require(String firebaseUid) {
+        return find(firebaseUid).orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    // Forgets the user now, and again once the change commits or rolls back
+    public void invalidate(String firebaseUid) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            request.removeAttribute(REQUEST_ATTRIBUTE + firebaseUid, RequestAttributes.SCOPE_REQUEST);
+        }
+        identities.invalidate(firebaseUid);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Lookups made before the transaction completes may have cached a row that no longer holds
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    identities.invalidate(firebaseUid);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.ecommerce.idgen;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out ids from the {@link IdSequences} for rows written with plain JDBC, which can't go
+ * through Hibernate's generator. Blocks are reserved in their own transaction, like Hibernate
+ * does, so a reservation is never rolled back and the row lock is held only briefly.
+ *
+ * <p>On startup each sequence is also brought up to the highest id already in its table. That
+ * is the migration path from identity columns: existing rows keep their ids and new ones
+ * continue after them. Rows inserted through {@code AUTO_INCREMENT} by an instance still on the
+ * old mapping would collide with pooled ids, so every instance has to be switched over at once.
+ */
+@Component
+@Slf4j
+public class IdBlockAllocator implements SmartInitializingSingleton {
+
+    private static final String SELECT_FOR_UPDATE = "SELECT " + IdSequences.VALUE_COLUMN + " FROM " +
+            IdSequences.TABLE + " WHERE " + IdSequences.NAME_COLUMN + " = ? FOR UPDATE";
+    private static final String ADVANCE = "UPDATE " + IdSequences.TABLE + " SET " + IdSequences.VALUE_COLUMN +
+            " = ? WHERE " + IdSequences.NAME_COLUMN + " = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate separateTransaction;
+    private final Map<String, Block> blocks = new HashMap<>();
+
+    public IdBlockAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.separateTransaction = new TransactionTemplate(transactionManager);
+        this.separateTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids and returns the first. Ids left in a block that is
+     * too small for the request are skipped.
+     */
+    public synchronized long allocate(String sequence, int count) {
+        Block block = blocks.get(sequence);
+        if (block == null || block.next + count - 1 > block.last) {
+            block = reserve(sequence, Math.max(count, IdSequences.ALLOCATION_SIZE));
+            blocks.put(sequence, block);
+        }
+        long first = block.next;
+        block.next += count;
+        return first;
+    }
+
+    // Runs after the schema is in place and before any startup runner inserts rows
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String sequence : IdSequences.ALL) {
+            String highestId = "(SELECT COALESCE(MAX(id), 0) FROM " + sequence + ")";
+            Integer existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + IdSequences.TABLE +
+                    " WHERE " + IdSequences.NAME_COLUMN + " = ?", Integer.class, sequence);
+            if (existing == null || existing == 0) {
+                try {
+                    jdbcTemplate.update("INSERT INTO " + IdSequences.TABLE + " (" + IdSequences.NAME_COLUMN + ", " +
+                            IdSequences.VALUE_COLUMN + ") SELECT ?, COALESCE(MAX(id), 0) FROM " + sequence, sequence);
+                } catch (DuplicateKeyException e) {
+                    // Another instance seeded it first
+                }
+            }
+            int raised = jdbcTemplate.update("UPDATE " + IdSequences.TABLE + " SET " + IdSequences.VALUE_COLUMN +
+                    " = " + highestId + " WHERE " + IdSequences.NAME_COLUMN + " = ? AND " +
+                    IdSequences.VALUE_COLUMN + " < " + highestId, sequence);
+            if (raised > 0) {
+                log.info("Moved id sequence {} past the existing rows", sequence);
+            }
+        }
+    }
+
+    private Block reserve(String sequence, int size) {
+        Long last = separateTransaction.execute(status -> {
+            long current = jdbcTemplate.queryForObject(SELECT_FOR_UPDATE, Long.class, sequence);
+            jdbcTemplate.update(ADVANCE, current + size, sequence);
+            return current + size;
+        });
+        return new Block(last - size + 1, last);
+    }
+
+    private static final class Block {
+
+        private long next;
+        private final long last;
+
+        private Block(long next, long last) {
+            this.next = next;
+            this.last = last;
+        }
+    }
+}
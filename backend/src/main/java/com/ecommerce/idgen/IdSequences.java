@@ -0,0 +1,28 @@
+package com.ecommerce.idgen;
+
+import java.util.List;
+
+/**
+ * Names of the table-backed id sequences. Each row of {@code id_sequences} holds the highest id
+ * handed out for one entity table. {@link PooledIdGenerator} and {@link IdBlockAllocator} both
+ * reserve blocks of ids by moving that value forward under a row lock, so JPA and JDBC inserts
+ * can share a sequence.
+ */
+public final class IdSequences {
+
+    public static final String TABLE = "id_sequences";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "last_used_id";
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Each sequence is named after the table whose ids it issues
+    public static final String ORDERS = "orders";
+    public static final String ORDER_ITEMS = "order_items";
+    public static final String CART_ITEMS = "cart_items";
+    public static final String PRODUCTS = "products";
+
+    static final List<String> ALL = List.of(ORDERS, ORDER_ITEMS, CART_ITEMS, PRODUCTS);
+
+    private IdSequences() {
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.idgen;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Hibernate's table generator, fixed to the layout {@link IdBlockAllocator} shares: blocks of
+ * {@link IdSequences#ALLOCATION_SIZE} ids are reserved from {@code id_sequences}, and a row
+ * holds the highest id handed out. Entities name their sequence with {@code segment_value}.
+ * The optimizer is set here rather than globally so the two can't drift apart.
+ */
+public class PooledIdGenerator extends TableGenerator {
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) {
+        parameters.setProperty(TABLE_PARAM, IdSequences.TABLE);
+        parameters.setProperty(SEGMENT_COLUMN_PARAM, IdSequences.NAME_COLUMN);
+        parameters.setProperty(VALUE_COLUMN_PARAM, IdSequences.VALUE_COLUMN);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(IdSequences.ALLOCATION_SIZE));
+        parameters.setProperty(INITIAL_PARAM, "1");
+        parameters.setProperty(OPT_PARAM, "pooled-lo");
+        parameters.setProperty(AvailableSettings.TABLE_GENERATOR_STORE_LAST_USED, "true");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.inventory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timer wheel: a deadline is filed under slot {@code tick % slots}, and advancing only
+ * visits the slots whose ticks have passed, so the cost of expiry doesn't grow with the number
+ * of live holds. Deadlines more than one revolution ahead stay in their slot until their round.
+ * Entries are never cancelled; callers check that what comes due is still live.
+ */
+final class ExpiryWheel {
+
+    private final long tickMillis;
+    private final ArrayDeque<Entry>[] slots;
+    private long processedTick;
+
+    @SuppressWarnings("unchecked")
+    ExpiryWheel(Duration tick, int size, Instant start) {
+        this.tickMillis = Math.max(tick.toMillis(), 1);
+        this.slots = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+        this.processedTick = start.toEpochMilli() / tickMillis;
+    }
+
+    synchronized void schedule(String id, Instant deadline) {
+        // Round up so nothing comes due early, and never file under a slot that has already been visited
+        long tick = Math.max((deadline.toEpochMilli() + tickMillis - 1) / tickMillis, processedTick + 1);
+        slots[(int) (tick % slots.length)].add(new Entry(id, tick));
+    }
+
+    synchronized List<String> advance(Instant now) {
+        long nowTick = now.toEpochMilli() / tickMillis;
+        List<String> due = new ArrayList<>();
+        // After a long pause one revolution covers every slot
+        long lastTick = Math.min(nowTick, processedTick + slots.length);
+        for (long tick = processedTick + 1; tick <= lastTick; tick++) {
+            ArrayDeque<Entry> slot = slots[(int) (tick % slots.length)];
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                Entry entry = slot.poll();
+                if (entry.tick <= nowTick) {
+                    due.add(entry.id);
+                } else {
+                    slot.add(entry);
+                }
+            }
+        }
+        processedTick = Math.max(processedTick, nowTick);
+        return due;
+    }
+
+    private static final class Entry {
+
+        private final String id;
+        private final long tick;
+
+        private Entry(String id, long tick) {
+            this.id = id;
+            this.tick = tick;
+        }
+    }
+}
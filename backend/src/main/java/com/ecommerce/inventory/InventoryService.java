@@ -0,0 +1,220 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Stock writes as single guarded statements instead of read-modify-write through the entity.
+ * The database checks and applies each change atomically, so concurrent checkouts can't
+ * oversell, and all lines of an order go to the database as one JDBC batch. Products whose
+ * stock is sharded go through {@link ShardedStockService} instead.
+ *
+ * Writes bypass the persistence context: {@code Product} entities already loaded in the
+ * current transaction keep their old stock values. Each write bumps the product's version, so
+ * a concurrent entity update of the same product fails its optimistic lock check.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class InventoryService {
+
+    // status is assigned first so both assignments see the stock value from before the update
+    private static final String DECREMENT = "UPDATE products " +
+            "SET status = CASE WHEN stock_quantity = ? THEN 'OUT_OF_STOCK' ELSE status END, " +
+            "stock_quantity = stock_quantity - ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND status = 'ACTIVE' AND stock_quantity >= ? AND stock_slots IS NULL";
+
+    private static final String INCREMENT = "UPDATE products " +
+            "SET status = CASE WHEN status = 'OUT_OF_STOCK' AND stock_quantity + ? > 0 THEN 'ACTIVE' ELSE status END, " +
+            "stock_quantity = stock_quantity + ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND stock_slots IS NULL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardedStockService shardedStock;
+
+    /**
+     * Decrements every line that can be fulfilled and reports the ones that can't. Successful
+     * lines stay applied in the current transaction, so a caller that needs all-or-nothing
+     * must roll it back (e.g. by throwing) when the result is not successful.
+     */
+    public StockDecrementResult decrement(List<StockLine> lines) {
+        List<Long> decremented = new ArrayList<>();
+        Map<Long, Integer> slotCounts = shardedStock.slotCounts(productIds(lines));
+        List<StockLine> failed = decrement(lines, slotCounts, decremented);
+        // A line fails on the wrong path if its product was sharded or unsharded since the slot counts were read
+        List<StockLine> switched = switchedLines(failed, slotCounts);
+        if (!switched.isEmpty()) {
+            failed.removeAll(switched);
+            failed.addAll(decrement(switched, shardedStock.slotCounts(productIds(switched)), decremented));
+        }
+        if (!failed.isEmpty()) {
+            log.info("Stock decrement failed for {} of {} lines: {}", failed.size(), lines.size(), failed);
+        }
+
+        // The guard only lets active products through, so any product not active now was just sold out.
+        // Sharded products publish their changes when they are reconciled.
+        Map<Long, StockState> states = loadStates(decremented);
+        states.forEach((productId, state) -> publishChange(productId, true, state));
+        return new StockDecrementResult(failed);
+    }
+
+    public void increment(List<StockLine> lines) {
+        Map<Long, Integer> slotCounts = shardedStock.slotCounts(productIds(lines));
+        List<StockLine> unapplied = increment(lines, slotCounts);
+        List<StockLine> switched = switchedLines(unapplied, slotCounts);
+        if (!switched.isEmpty()) {
+            unapplied.removeAll(switched);
+            unapplied.addAll(increment(switched, shardedStock.slotCounts(productIds(switched))));
+        }
+        if (!unapplied.isEmpty()) {
+            throw new RuntimeException("Failed to restore stock");
+        }
+    }
+
+    // Returns the lines that could not be decremented; adds the products decremented through their row
+    private List<StockLine> decrement(List<StockLine> lines, Map<Long, Integer> slotCounts, List<Long> decremented) {
+        List<StockLine> failed = new ArrayList<>();
+        List<StockLine> rowLines = new ArrayList<>();
+        for (StockLine line : lines) {
+            Integer slots = slotCounts.get(line.getProductId());
+            if (slots == null) {
+                rowLines.add(line);
+            } else if (!shardedStock.decrement(line.getProductId(), slots, line.getQuantity())) {
+                failed.add(line);
+            }
+        }
+
+        if (!rowLines.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(DECREMENT, rowLines, rowLines.size(), (ps, line) -> {
+                ps.setInt(1, line.getQuantity());
+                ps.setInt(2, line.getQuantity());
+                ps.setTimestamp(3, now);
+                ps.setLong(4, line.getProductId());
+                ps.setInt(5, line.getQuantity());
+            });
+            for (int i = 0; i < rowLines.size(); i++) {
+                if (counts[0][i] == 1) {
+                    decremented.add(rowLines.get(i).getProductId());
+                } else {
+                    failed.add(rowLines.get(i));
+                }
+            }
+        }
+        return failed;
+    }
+
+    // Returns the lines that could not be applied
+    private List<StockLine> increment(List<StockLine> lines, Map<Long, Integer> slotCounts) {
+        List<StockLine> unapplied = new ArrayList<>();
+        List<StockLine> rowLines = new ArrayList<>();
+        for (StockLine line : lines) {
+            Integer slots = slotCounts.get(line.getProductId());
+            if (slots == null) {
+                rowLines.add(line);
+            } else if (!shardedStock.increment(line.getProductId(), slots, line.getQuantity())) {
+                unapplied.add(line);
+            }
+        }
+        if (rowLines.isEmpty()) {
+            return unapplied;
+        }
+        Map<Long, StockState> before = loadStates(productIds(rowLines));
+        if (!before.keySet().containsAll(productIds(rowLines))) {
+            throw new RuntimeException("Product not found");
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(INCREMENT, rowLines, rowLines.size(), (ps, line) -> {
+            ps.setInt(1, line.getQuantity());
+            ps.setInt(2, line.getQuantity());
+            ps.setTimestamp(3, now);
+            ps.setLong(4, line.getProductId());
+        });
+        List<Long> incremented = new ArrayList<>();
+        for (int i = 0; i < rowLines.size(); i++) {
+            if (counts[0][i] == 1) {
+                incremented.add(rowLines.get(i).getProductId());
+            } else {
+                unapplied.add(rowLines.get(i));
+            }
+        }
+
+        loadStates(incremented).forEach((productId, state) ->
+                publishChange(productId, before.get(productId).isActive(), state));
+        return unapplied;
+    }
+
+    private List<StockLine> switchedLines(List<StockLine> lines, Map<Long, Integer> slotCounts) {
+        if (lines.isEmpty()) {
+            return lines;
+        }
+        Map<Long, Integer> current = shardedStock.slotCounts(productIds(lines));
+        return lines.stream()
+                .filter(line -> !Objects.equals(current.get(line.getProductId()), slotCounts.get(line.getProductId())))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> productIds(List<StockLine> lines) {
+        return lines.stream().map(StockLine::getProductId).collect(Collectors.toList());
+    }
+
+    private void publishChange(Long productId, boolean wasActive, StockState state) {
+        ProductChangedEvent.ChangeType type = wasActive != state.isActive()
+                ? ProductChangedEvent.ChangeType.STATUS_CHANGED
+                : ProductChangedEvent.ChangeType.STOCK_CHANGED;
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, type,
+                state.categoryId, wasActive, state.categoryId, state.isActive(), state.stockQuantity));
+    }
+
+    private Map<Long, StockState> loadStates(Collection<Long> productIds) {
+        Map<Long, StockState> states = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return states;
+        }
+        jdbcTemplate.query("SELECT id, stock_quantity, status, category_id FROM products WHERE id IN (:ids)",
+                Map.of("ids", new HashSet<>(productIds)),
+                (RowCallbackHandler) rs -> states.put(rs.getLong("id"), new StockState(
+                        rs.getInt("stock_quantity"),
+                        Product.ProductStatus.valueOf(rs.getString("status")),
+                        rs.getObject("category_id", Long.class))));
+        return states;
+    }
+
+    private static final class StockState {
+
+        private final int stockQuantity;
+        private final Product.ProductStatus status;
+        private final Long categoryId;
+
+        private StockState(int stockQuantity, Product.ProductStatus status, Long categoryId) {
+            this.stockQuantity = stockQuantity;
+            this.status = status;
+            this.categoryId = categoryId;
+        }
+
+        private boolean isActive() {
+            return status == Product.ProductStatus.ACTIVE;
+        }
+    }
+}
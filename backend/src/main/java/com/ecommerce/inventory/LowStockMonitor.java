@@ -0,0 +1,208 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.concurrency.RetryOnConflict;
+import com.ecommerce.concurrency.TransactionCallbacks;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the set of products at or below their low-stock threshold, updated from the product
+ * change events every stock write publishes, so nothing has to scan the catalog for it. A
+ * product's own threshold wins over its category's, which wins over
+ * {@code app.inventory.low-stock.default-threshold}. Inactive products aren't tracked; sold-out
+ * products stay in the set until they are restocked.
+ */
+@Service
+@Slf4j
+@Transactional
+public class LowStockMonitor {
+
+    private static final Comparator<StockState> LOWEST_STOCK_FIRST = Comparator
+            .comparingInt((StockState state) -> state.stockQuantity)
+            .thenComparing(state -> state.productId);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final int defaultThreshold;
+    private final Counter crossings;
+
+    private final Map<Long, StockState> tracked = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> productThresholds = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> categoryThresholds = new ConcurrentHashMap<>();
+    private final NavigableSet<StockState> lowStock = new ConcurrentSkipListSet<>(LOWEST_STOCK_FIRST);
+
+    public LowStockMonitor(ProductRepository productRepository,
+                           CategoryRepository categoryRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.inventory.low-stock.default-threshold:10}") int defaultThreshold) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.defaultThreshold = defaultThreshold;
+        this.crossings = meterRegistry.counter("inventory.low_stock.crossings");
+        meterRegistry.gaugeCollectionSize("inventory.low_stock.products", List.of(), lowStock);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<Long> getLowStockProductIds(int page, int size) {
+        List<Long> ids = lowStock.stream()
+                .skip((long) page * size)
+                .limit(size)
+                .map(state -> state.productId)
+                .collect(Collectors.toList());
+        return new PageImpl<>(ids, PageRequest.of(page, size), lowStock.size());
+    }
+
+    @RetryOnConflict
+    public void setProductThreshold(Long productId, Integer threshold) {
+        if (threshold != null && threshold < 0) {
+            throw new RuntimeException("Low stock threshold cannot be negative");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        product.setLowStockThreshold(threshold);
+        productRepository.save(product);
+
+        TransactionCallbacks.afterCommit(() -> {
+            if (threshold != null) {
+                productThresholds.put(productId, threshold);
+            } else {
+                productThresholds.remove(productId);
+            }
+            reevaluate(productId);
+        });
+        log.info("Set low stock threshold of product {} to {}", productId, threshold);
+    }
+
+    public void setCategoryThreshold(Long categoryId, Integer threshold) {
+        if (threshold != null && threshold < 0) {
+            throw new RuntimeException("Low stock threshold cannot be negative");
+        }
+        Category category = categoryRepository.findById(categoryId)
+                .orElseThrow(() -> new RuntimeException("Category not found"));
+        category.setLowStockThreshold(threshold);
+        categoryRepository.save(category);
+
+        TransactionCallbacks.afterCommit(() -> {
+            if (threshold != null) {
+                categoryThresholds.put(categoryId, threshold);
+            } else {
+                categoryThresholds.remove(categoryId);
+            }
+            tracked.values().stream()
+                    .filter(state -> categoryId.equals(state.categoryId))
+                    .map(state -> state.productId)
+                    .collect(Collectors.toList())
+                    .forEach(this::reevaluate);
+        });
+        log.info("Set low stock threshold of category {} to {}", categoryId, threshold);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        categoryRepository.findAll().stream()
+                .filter(category -> category.getLowStockThreshold() != null)
+                .forEach(category -> categoryThresholds.put(category.getId(), category.getLowStockThreshold()));
+        productRepository.findStockThresholds().forEach(this::apply);
+        log.info("Loaded low stock monitor: {} of {} products at or below threshold", lowStock.size(), tracked.size());
+    }
+
+    // Runs after every checkout, so it works from the event alone rather than taking another connection
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Products that sell out are no longer active but still need restocking
+        boolean watched = event.getType() != ProductChangedEvent.ChangeType.DELETED
+                && (event.isActive() || event.getStockQuantity() == 0);
+        evaluate(event.getProductId(), event.getCategoryId(), event.getStockQuantity(), watched);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        if (!event.getProductIds().isEmpty()) {
+            productRepository.findStockThresholdsByIdIn(event.getProductIds()).forEach(this::apply);
+        }
+    }
+
+    private void apply(ProductRepository.StockThresholdView view) {
+        if (view.getLowStockThreshold() != null) {
+            productThresholds.put(view.getProductId(), view.getLowStockThreshold());
+        }
+        evaluate(view.getProductId(), view.getCategoryId(), view.getStockQuantity(), true);
+    }
+
+    private void reevaluate(Long productId) {
+        StockState state = tracked.get(productId);
+        if (state != null) {
+            evaluate(productId, state.categoryId, state.stockQuantity, true);
+        }
+    }
+
+    private synchronized void evaluate(Long productId, Long categoryId, int stockQuantity, boolean watched) {
+        StockState previous = watched
+                ? tracked.put(productId, new StockState(productId, categoryId, stockQuantity))
+                : tracked.remove(productId);
+        boolean wasLow = previous != null && lowStock.remove(previous);
+        if (!watched) {
+            return;
+        }
+
+        int threshold = thresholdOf(productId, categoryId);
+        boolean low = stockQuantity <= threshold;
+        if (low) {
+            lowStock.add(tracked.get(productId));
+        }
+        if (low && !wasLow) {
+            crossings.increment();
+            log.warn("Product {} is low on stock: {} left, threshold {}", productId, stockQuantity, threshold);
+        } else if (!low && wasLow) {
+            log.info("Product {} is back above its low stock threshold: {} in stock", productId, stockQuantity);
+        }
+    }
+
+    private int thresholdOf(Long productId, Long categoryId) {
+        Integer threshold = productThresholds.get(productId);
+        if (threshold == null && categoryId != null) {
+            threshold = categoryThresholds.get(categoryId);
+        }
+        return threshold != null ? threshold : defaultThreshold;
+    }
+
+    private static final class StockState {
+
+        private final Long productId;
+        private final Long categoryId;
+        private final int stockQuantity;
+
+        private StockState(Long productId, Long categoryId, int stockQuantity) {
+            this.productId = productId;
+            this.categoryId = categoryId;
+            this.stockQuantity = stockQuantity;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.ecommerce.inventory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock on hand and the checkout holds against it, kept in memory so available-to-promise is
+ * answered without a database query. Product levels are guarded by a fixed set of lock stripes
+ * instead of one global lock; a hold spanning several products takes their stripes in index
+ * order, so concurrent holds can't deadlock. Holds expire through an {@link ExpiryWheel} that
+ * {@link ReservationService} advances; it also keeps the levels in step with the database.
+ */
+@Component
+public class ReservationLedger {
+
+    private static final int STRIPES = 64;
+    private static final int WHEEL_SLOTS = 512;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+    private final Map<String, StockHold> holdsByUser = new ConcurrentHashMap<>();
+    private final Map<String, StockHold> holdsById = new ConcurrentHashMap<>();
+    private final ExpiryWheel wheel;
+    private volatile boolean ready;
+
+    public ReservationLedger(@Value("${app.reservations.tick:PT1S}") Duration tick) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.wheel = new ExpiryWheel(tick, WHEEL_SLOTS, Instant.now());
+    }
+
+    // Empty until the ledger has been loaded, or for a product it doesn't know
+    public OptionalInt getAvailableToPromise(Long productId) {
+        Level level = levels.get(productId);
+        if (!ready || level == null) {
+            return OptionalInt.empty();
+        }
+        ReentrantLock stripe = stripeOf(productId);
+        stripe.lock();
+        try {
+            return OptionalInt.of(level.available());
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    // Leaves out the products getAvailableToPromise(Long) has no answer for
+    public Map<Long, Integer> getAvailableToPromise(Collection<Long> productIds) {
+        Map<Long, Integer> available = new HashMap<>();
+        if (!ready) {
+            return available;
+        }
+        for (Long productId : productIds) {
+            getAvailableToPromise(productId).ifPresent(quantity -> available.put(productId, quantity));
+        }
+        return available;
+    }
+
+    public Optional<StockHold> getHold(String firebaseUid) {
+        return Optional.ofNullable(holdsByUser.get(firebaseUid));
+    }
+
+    /**
+     * Places the hold if every line can be promised, replacing the user's previous hold, whose
+     * quantities count as available to the new one. Returns the lines that can't be promised;
+     * if there are any, nothing changes.
+     */
+    public List<StockLine> place(StockHold hold) {
+        while (true) {
+            StockHold previous = holdsByUser.get(hold.getFirebaseUid());
+            List<ReentrantLock> locked = lockStripes(hold, previous);
+            try {
+                // The previous hold was replaced or expired before its stripes were ours
+                if (holdsByUser.get(hold.getFirebaseUid()) != previous) {
+                    continue;
+                }
+                List<StockLine> failed = new ArrayList<>();
+                for (StockLine line : hold.getLines()) {
+                    Level level = levels.get(line.getProductId());
+                    int held = previous != null ? previous.quantityOf(line.getProductId()) : 0;
+                    if (level == null || line.getQuantity() > level.available() + held) {
+                        failed.add(line);
+                    }
+                }
+                if (failed.isEmpty()) {
+                    if (previous != null) {
+                        unreserve(previous);
+                    }
+                    reserve(hold);
+                    wheel.schedule(hold.getHoldId(), hold.getExpiresAt());
+                }
+                return failed;
+            } finally {
+                locked.forEach(ReentrantLock::unlock);
+            }
+        }
+    }
+
+    /**
+     * The lines that can't be promised to the user, counting their own hold as available.
+     * Products the ledger doesn't know pass; the database guard has the final word.
+     */
+    public List<StockLine> findShortfall(String firebaseUid, List<StockLine> lines) {
+        if (!ready) {
+            return List.of();
+        }
+        StockHold hold = holdsByUser.get(firebaseUid);
+        List<StockLine> shortfall = new ArrayList<>();
+        for (StockLine line : lines) {
+            Level level = levels.get(line.getProductId());
+            if (level == null) {
+                continue;
+            }
+            int held = hold != null ? hold.quantityOf(line.getProductId()) : 0;
+            ReentrantLock stripe = stripeOf(line.getProductId());
+            stripe.lock();
+            try {
+                if (line.getQuantity() > level.available() + held) {
+                    shortfall.add(line);
+                }
+            } finally {
+                stripe.unlock();
+            }
+        }
+        return shortfall;
+    }
+
+    public Optional<StockHold> release(String firebaseUid) {
+        StockHold hold = holdsByUser.get(firebaseUid);
+        if (hold == null) {
+            return Optional.empty();
+        }
+        return remove(hold) ? Optional.of(hold) : Optional.empty();
+    }
+
+    // Releases this particular hold, unless it was already replaced, released or expired
+    public boolean release(StockHold hold) {
+        return remove(hold);
+    }
+
+    // Holds read back from the database at startup were valid when placed, so they aren't checked again
+    void restore(StockHold hold) {
+        List<ReentrantLock> locked = lockStripes(hold, null);
+        try {
+            if (!holdsById.containsKey(hold.getHoldId())) {
+                reserve(hold);
+                wheel.schedule(hold.getHoldId(), hold.getExpiresAt());
+            }
+        } finally {
+            locked.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * Releases every hold whose deadline has passed and returns them.
+     */
+    public List<StockHold> expire(Instant now) {
+        List<StockHold> expired = new ArrayList<>();
+        for (String holdId : wheel.advance(now)) {
+            StockHold hold = holdsById.get(holdId);
+            if (hold != null && !hold.getExpiresAt().isAfter(now) && remove(hold)) {
+                expired.add(hold);
+            }
+        }
+        return expired;
+    }
+
+    public void updateLevel(Long productId, int onHand, boolean active) {
+        ReentrantLock stripe = stripeOf(productId);
+        stripe.lock();
+        try {
+            Level level = levels.computeIfAbsent(productId, id -> new Level());
+            level.onHand = onHand;
+            level.active = active;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    public int getHoldCount() {
+        return holdsById.size();
+    }
+
+    private boolean remove(StockHold hold) {
+        List<ReentrantLock> locked = lockStripes(hold, null);
+        try {
+            // Lost a race with another release or expiry of the same hold
+            if (holdsById.get(hold.getHoldId()) != hold) {
+                return false;
+            }
+            unreserve(hold);
+            return true;
+        } finally {
+            locked.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    private void reserve(StockHold hold) {
+        holdsById.put(hold.getHoldId(), hold);
+        holdsByUser.put(hold.getFirebaseUid(), hold);
+        adjust(hold, 1);
+    }
+
+    private void unreserve(StockHold hold) {
+        holdsById.remove(hold.getHoldId());
+        holdsByUser.remove(hold.getFirebaseUid(), hold);
+        adjust(hold, -1);
+    }
+
+    // Callers hold the stripes of every product in the hold
+    private void adjust(StockHold hold, int sign) {
+        for (StockLine line : hold.getLines()) {
+            levels.computeIfAbsent(line.getProductId(), id -> new Level()).reserved += sign * line.getQuantity();
+        }
+    }
+
+    private List<ReentrantLock> lockStripes(StockHold hold, StockHold other) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        hold.getLines().forEach(line -> indexes.add(stripeIndex(line.getProductId())));
+        if (other != null) {
+            other.getLines().forEach(line -> indexes.add(stripeIndex(line.getProductId())));
+        }
+        List<ReentrantLock> locked = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            stripes[index].lock();
+            locked.add(stripes[index]);
+        }
+        return locked;
+    }
+
+    private ReentrantLock stripeOf(Long productId) {
+        return stripes[stripeIndex(productId)];
+    }
+
+    private static int stripeIndex(Long productId) {
+        return Math.floorMod(Long.hashCode(productId), STRIPES);
+    }
+
+    // Mutated only under the product's stripe
+    private static final class Level {
+
+        private int onHand;
+        private int reserved;
+        private boolean active;
+
+        private int available() {
+            return active ? Math.max(onHand - reserved, 0) : 0;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.concurrency.TransactionCallbacks;
+import com.ecommerce.dto.response.CheckoutHoldResponse;
+import com.ecommerce.entity.Cart;
+import com.ecommerce.entity.CartItem;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.StockReservation;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.identity.UserIdentity;
+import com.ecommerce.identity.UserIdentityCache;
+import com.ecommerce.repository.CartRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.StockReservationRepository;
+import com.ecommerce.service.CartService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Checkout holds: stock promised to a shopper for {@code app.reservations.ttl} from the start
+ * of checkout, so they don't reach the last step only to find it sold. The
+ * {@link ReservationLedger} decides and tracks holds in memory; holds are also written to
+ * {@code stock_reservations} so a restart can rebuild them.
+ */
+@Service
+@Slf4j
+@Transactional
+public class ReservationService {
+
+    private final ReservationLedger ledger;
+    private final StockReservationRepository reservationRepository;
+    private final ProductRepository productRepository;
+    private final CartRepository cartRepository;
+    private final UserIdentityCache userIdentityCache;
+    private final CartService cartService;
+    private final Duration ttl;
+
+    public ReservationService(ReservationLedger ledger,
+                              StockReservationRepository reservationRepository,
+                              ProductRepository productRepository,
+                              CartRepository cartRepository,
+                              UserIdentityCache userIdentityCache,
+                              CartService cartService,
+                              @Value("${app.reservations.ttl:PT10M}") Duration ttl) {
+        this.ledger = ledger;
+        this.reservationRepository = reservationRepository;
+        this.productRepository = productRepository;
+        this.cartRepository = cartRepository;
+        this.userIdentityCache = userIdentityCache;
+        this.cartService = cartService;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Holds the user's whole cart, replacing any hold they already have.
+     */
+    public CheckoutHoldResponse holdCart(String firebaseUid) {
+        cartService.flush(firebaseUid);
+        UserIdentity user = userIdentityCache.require(firebaseUid);
+        Cart cart = cartRepository.findByUserIdWithItems(user.getUserId())
+                .orElseThrow(() -> new RuntimeException("Cart not found or is empty"));
+        if (cart.getItems() == null || cart.getItems().isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+
+        StockHold hold = new StockHold(UUID.randomUUID().toString(), firebaseUid,
+                cart.getItems().stream()
+                        .map(item -> new StockLine(item.getProduct().getId(), item.getQuantity()))
+                        .collect(Collectors.toList()),
+                Instant.now().plus(ttl));
+        List<StockLine> failed = ledger.place(hold);
+        if (!failed.isEmpty()) {
+            throw new RuntimeException("Insufficient stock for: " + StockLine.describe(failed, cart.getItems()));
+        }
+
+        // Dropped again if the rows never commit, wherever the transaction fails
+        TransactionCallbacks.afterCompletion(() -> { }, () -> ledger.release(hold));
+        reservationRepository.deleteByFirebaseUid(firebaseUid);
+        reservationRepository.saveAll(toRows(hold));
+        log.info("Held {} cart lines for user {} until {}", hold.getLines().size(), firebaseUid, hold.getExpiresAt());
+        return CheckoutHoldResponse.fromHold(hold);
+    }
+
+    public void releaseHold(String firebaseUid) {
+        reservationRepository.deleteByFirebaseUid(firebaseUid);
+        ledger.release(firebaseUid);
+    }
+
+    /**
+     * Lines of an order that would eat into stock held for other shoppers.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<StockLine> findShortfall(String firebaseUid, List<CartItem> cartItems) {
+        return ledger.findShortfall(firebaseUid, cartItems.stream()
+                .map(item -> new StockLine(item.getProduct().getId(), item.getQuantity()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Drops the user's hold as part of placing their order. The in-memory hold is released only
+     * once the order commits; until then it still shields the stock the order is taking.
+     */
+    public void consumeHold(String firebaseUid) {
+        if (ledger.getHold(firebaseUid).isEmpty()) {
+            return;
+        }
+        reservationRepository.deleteByFirebaseUid(firebaseUid);
+        TransactionCallbacks.afterCommit(() -> ledger.release(firebaseUid));
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.tick:PT1S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void expireHolds() {
+        List<StockHold> expired = ledger.expire(Instant.now());
+        if (!expired.isEmpty()) {
+            reservationRepository.deleteByHoldIdIn(expired.stream()
+                    .map(StockHold::getHoldId)
+                    .collect(Collectors.toList()));
+            log.debug("Expired {} checkout holds", expired.size());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        productRepository.findStockLevels().forEach(this::apply);
+
+        reservationRepository.deleteExpired(LocalDateTime.now());
+        Map<String, List<StockReservation>> rowsByHold = reservationRepository.findAll().stream()
+                .collect(Collectors.groupingBy(StockReservation::getHoldId));
+        rowsByHold.values().forEach(rows -> ledger.restore(toHold(rows)));
+
+        ledger.markReady();
+        log.info("Loaded reservation ledger with {} active holds", rowsByHold.size());
+    }
+
+    // Runs after every checkout, so it works from the event alone rather than taking another connection
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        ledger.updateLevel(event.getProductId(), event.getStockQuantity(), event.isActive());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        refreshLevels(event.getProductIds());
+    }
+
+    private void refreshLevels(Collection<Long> productIds) {
+        if (!productIds.isEmpty()) {
+            productRepository.findStockLevelsByIdIn(productIds).forEach(this::apply);
+        }
+    }
+
+    private void apply(ProductRepository.StockLevel level) {
+        ledger.updateLevel(level.getProductId(), level.getStockQuantity(),
+                level.getStatus() == Product.ProductStatus.ACTIVE);
+    }
+
+    private static List<StockReservation> toRows(StockHold hold) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(hold.getExpiresAt(), ZoneId.systemDefault());
+        return hold.getLines().stream()
+                .map(line -> {
+                    StockReservation row = new StockReservation();
+                    row.setHoldId(hold.getHoldId());
+                    row.setFirebaseUid(hold.getFirebaseUid());
+                    row.setProductId(line.getProductId());
+                    row.setQuantity(line.getQuantity());
+                    row.setExpiresAt(expiresAt);
+                    return row;
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static StockHold toHold(List<StockReservation> rows) {
+        StockReservation first = rows.get(0);
+        return new StockHold(first.getHoldId(), first.getFirebaseUid(),
+                rows.stream()
+                        .map(row -> new StockLine(row.getProductId(), row.getQuantity()))
+                        .collect(Collectors.toList()),
+                first.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
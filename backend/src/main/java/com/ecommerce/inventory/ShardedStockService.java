@@ -0,0 +1,277 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.concurrency.TransactionCallbacks;
+import com.ecommerce.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sharded stock for hot products. Every checkout of a product normally updates its one
+ * {@code products} row, so InnoDB row locks serialize all buyers of a flash-sale item. A
+ * sharded product's stock is split across counter slots in {@code product_stock_shards}
+ * instead; a decrement starts at a random slot, so concurrent buyers mostly lock different
+ * rows. {@code Product.stockQuantity} and the out-of-stock status follow the slots' sum
+ * through a scheduled reconciliation.
+ *
+ * Whether a product is sharded is read from {@code products.stock_slots}, never cached, so
+ * every instance sees {@link #enable} and {@link #disable} as soon as they commit. Row
+ * decrements only apply while the column is null, so none can slip past a concurrent enable.
+ */
+@Service
+@Slf4j
+@Transactional
+public class ShardedStockService {
+
+    public static final int MAX_SLOTS = 64;
+
+    // Inactive products don't sell; out-of-stock only means the last reconciliation saw zero
+    private static final String DECREMENT_SLOT = "UPDATE product_stock_shards SET quantity = quantity - :quantity " +
+            "WHERE product_id = :productId AND slot = :slot AND quantity >= :quantity " +
+            "AND EXISTS (SELECT 1 FROM products p WHERE p.id = :productId AND p.status <> 'INACTIVE')";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Added only once a change commits: a reconciliation running before that would sum the old slots
+    private final Set<Long> unreconciled = ConcurrentHashMap.newKeySet();
+
+    public ShardedStockService(NamedParameterJdbcTemplate jdbcTemplate,
+                               ApplicationEventPublisher eventPublisher,
+                               PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // The slot counts of those of the products that are sharded
+    public Map<Long, Integer> slotCounts(Collection<Long> productIds) {
+        Map<Long, Integer> slotCounts = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return slotCounts;
+        }
+        jdbcTemplate.query("SELECT id, stock_slots FROM products WHERE id IN (:ids) AND stock_slots IS NOT NULL",
+                Map.of("ids", new HashSet<>(productIds)),
+                (RowCallbackHandler) rs -> slotCounts.put(rs.getLong("id"), rs.getInt("stock_slots")));
+        return slotCounts;
+    }
+
+    /**
+     * Splits the product's current stock evenly across {@code slots} counters, or re-splits it
+     * if the product is already sharded.
+     */
+    public void enable(Long productId, int slots) {
+        if (slots < 2 || slots > MAX_SLOTS) {
+            throw new RuntimeException("Slot count must be between 2 and " + MAX_SLOTS);
+        }
+        // Slots are locked before the product row, in the same order as decrements. A re-split sums
+        // them under lock, so no concurrent decrement is lost when they are rewritten.
+        lockSlots(productId);
+        Map<String, Object> row = lockProduct(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        int stock = row.get("stock_slots") != null ? lockSlots(productId)
+                : ((Number) row.get("stock_quantity")).intValue();
+        writeSlots(productId, slots, stock);
+        setSlotCount(productId, slots);
+        log.info("Sharded stock of product {} across {} slots", productId, slots);
+    }
+
+    // Folds the slots back into the product row
+    public void disable(Long productId) {
+        lockSlots(productId);
+        if (lockProduct(productId).map(row -> row.get("stock_slots") == null).orElse(true)) {
+            return;
+        }
+        reconcile(productId);
+        jdbcTemplate.update("DELETE FROM product_stock_shards WHERE product_id = :productId",
+                Map.of("productId", productId));
+        setSlotCount(productId, null);
+        log.info("Stopped sharding stock of product {}", productId);
+    }
+
+    // An admin edit sets the stock outright; spread the new figure over the existing slots
+    public void redistribute(Long productId, int stock) {
+        Integer slots = slotCounts(List.of(productId)).get(productId);
+        if (slots != null) {
+            writeSlots(productId, slots, stock);
+            TransactionCallbacks.afterCommit(() -> unreconciled.add(productId));
+        }
+    }
+
+    /**
+     * Takes {@code quantity} from the product's slots: first from one slot, trying them from a
+     * random start, then, if no single slot holds enough, from several slots at once under lock.
+     * Fails without taking anything if the product is no longer sharded.
+     */
+    public boolean decrement(Long productId, int slots, int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            int updated = jdbcTemplate.update(DECREMENT_SLOT, Map.of(
+                    "quantity", quantity, "productId", productId, "slot", (start + i) % slots));
+            if (updated == 1) {
+                TransactionCallbacks.afterCommit(() -> unreconciled.add(productId));
+                return true;
+            }
+        }
+        return drain(productId, quantity);
+    }
+
+    // Returns false, having added nothing, if the product is no longer sharded
+    public boolean increment(Long productId, int slots, int quantity) {
+        int updated = jdbcTemplate.update("UPDATE product_stock_shards SET quantity = quantity + :quantity " +
+                        "WHERE product_id = :productId AND slot = :slot",
+                Map.of("quantity", quantity, "productId", productId,
+                        "slot", ThreadLocalRandom.current().nextInt(slots)));
+        if (updated == 0) {
+            return false;
+        }
+        TransactionCallbacks.afterCommit(() -> unreconciled.add(productId));
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.inventory.shards.reconcile-interval:PT1S}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public synchronized void reconcileAll() {
+        for (Long productId : new ArrayList<>(unreconciled)) {
+            unreconciled.remove(productId);
+            try {
+                transactionTemplate.executeWithoutResult(status -> reconcile(productId));
+            } catch (RuntimeException e) {
+                TransactionCallbacks.afterCommit(() -> unreconciled.add(productId));
+                log.warn("Failed to reconcile sharded stock of product {}", productId, e);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        List<Long> sharded = jdbcTemplate.queryForList("SELECT id FROM products WHERE stock_slots IS NOT NULL",
+                Map.of(), Long.class);
+        unreconciled.addAll(sharded);
+        log.info("Found sharded stock for {} products", sharded.size());
+    }
+
+    private boolean drain(Long productId, int quantity) {
+        List<int[]> slots = new ArrayList<>();
+        jdbcTemplate.query("SELECT slot, quantity FROM product_stock_shards WHERE product_id = :productId " +
+                        "AND quantity > 0 ORDER BY slot FOR UPDATE",
+                Map.of("productId", productId),
+                (RowCallbackHandler) rs -> slots.add(new int[]{rs.getInt("slot"), rs.getInt("quantity")}));
+        Integer active = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products WHERE id = :productId " +
+                "AND status <> 'INACTIVE'", Map.of("productId", productId), Integer.class);
+        if (active == null || active == 0 || slots.stream().mapToInt(slot -> slot[1]).sum() < quantity) {
+            return false;
+        }
+
+        int remaining = quantity;
+        for (int[] slot : slots) {
+            int taken = Math.min(slot[1], remaining);
+            jdbcTemplate.update("UPDATE product_stock_shards SET quantity = quantity - :taken " +
+                            "WHERE product_id = :productId AND slot = :slot",
+                    Map.of("taken", taken, "productId", productId, "slot", slot[0]));
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        TransactionCallbacks.afterCommit(() -> unreconciled.add(productId));
+        return true;
+    }
+
+    // Sums the slots only once the product row is locked, so concurrent reconciliations apply in order
+    private void reconcile(Long productId) {
+        Map<String, Object> row = lockProduct(productId).orElse(null);
+        // A product no longer sharded keeps its stock in its row
+        if (row == null || row.get("stock_slots") == null) {
+            return;
+        }
+        int total = sumSlots(productId);
+        int stock = ((Number) row.get("stock_quantity")).intValue();
+        String status = (String) row.get("status");
+        String newStatus = total == 0 && "ACTIVE".equals(status) ? "OUT_OF_STOCK"
+                : total > 0 && "OUT_OF_STOCK".equals(status) ? "ACTIVE"
+                : status;
+        if (stock == total && newStatus.equals(status)) {
+            return;
+        }
+
+        jdbcTemplate.update("UPDATE products SET stock_quantity = :total, status = :status, updated_at = :now, " +
+                        "version = version + 1 " +
+                        "WHERE id = :productId",
+                Map.of("total", total, "status", newStatus, "now", Timestamp.valueOf(LocalDateTime.now()),
+                        "productId", productId));
+        Long categoryId = row.get("category_id") != null ? ((Number) row.get("category_id")).longValue() : null;
+        boolean wasActive = "ACTIVE".equals(status);
+        boolean active = "ACTIVE".equals(newStatus);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId,
+                wasActive != active ? ProductChangedEvent.ChangeType.STATUS_CHANGED
+                        : ProductChangedEvent.ChangeType.STOCK_CHANGED,
+                categoryId, wasActive, categoryId, active, total));
+    }
+
+    private Optional<Map<String, Object>> lockProduct(Long productId) {
+        try {
+            return Optional.of(jdbcTemplate.queryForMap("SELECT stock_quantity, stock_slots, status, category_id " +
+                    "FROM products WHERE id = :productId FOR UPDATE", Map.of("productId", productId)));
+        } catch (EmptyResultDataAccessException e) {
+            return Optional.empty();
+        }
+    }
+
+    // Bumps the version, so an entity update of the product loaded before this fails its optimistic lock check
+    private void setSlotCount(Long productId, Integer slots) {
+        jdbcTemplate.update("UPDATE products SET stock_slots = :slots, version = version + 1 WHERE id = :productId",
+                new MapSqlParameterSource("slots", slots).addValue("productId", productId));
+    }
+
+    // Locks every slot of the product and returns their total
+    private int lockSlots(Long productId) {
+        return jdbcTemplate.queryForList("SELECT quantity FROM product_stock_shards WHERE product_id = :productId " +
+                        "ORDER BY slot FOR UPDATE", Map.of("productId", productId), Integer.class)
+                .stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private int sumSlots(Long productId) {
+        Integer total = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM product_stock_shards " +
+                "WHERE product_id = :productId", Map.of("productId", productId), Integer.class);
+        return total != null ? total : 0;
+    }
+
+    private void writeSlots(Long productId, int slots, int stock) {
+        jdbcTemplate.update("DELETE FROM product_stock_shards WHERE product_id = :productId",
+                Map.of("productId", productId));
+        List<Object[]> rows = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            // The first stock % slots slots take one unit of the remainder each
+            rows.add(new Object[]{productId, slot, stock / slots + (slot < stock % slots ? 1 : 0)});
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "INSERT INTO product_stock_shards (product_id, slot, quantity) VALUES (?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.inventory;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a guarded stock decrement. A line fails when its product is not active or has
+ * less stock than the line asks for; every other line has been decremented.
+ */
+@Getter
+@RequiredArgsConstructor
+public class StockDecrementResult {
+
+    private final List<StockLine> failedLines;
+
+    public boolean isSuccessful() {
+        return failedLines.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecommerce.inventory;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stock set aside for one user's checkout until {@code expiresAt}. A user has at most one hold.
+ */
+@Getter
+@RequiredArgsConstructor
+public class StockHold {
+
+    private final String holdId;
+    private final String firebaseUid;
+    private final List<StockLine> lines;
+    private final Instant expiresAt;
+
+    public int quantityOf(Long productId) {
+        return lines.stream()
+                .filter(line -> line.getProductId().equals(productId))
+                .mapToInt(StockLine::getQuantity)
+                .sum();
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.entity.CartItem;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A quantity of one product, e.g. a cart line being checked out or an order line being restored.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class StockLine {
+
+    private final Long productId;
+    private final int quantity;
+
+    // e.g. "Dell XPS 13 (requested 2), MacBook Pro 16" (requested 1)", for error messages shown to the shopper
+    public static String describe(List<StockLine> lines, List<CartItem> cartItems) {
+        Map<Long, String> names = cartItems.stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), item -> item.getProduct().getName(),
+                        (first, second) -> first));
+        return lines.stream()
+                .map(line -> names.getOrDefault(line.getProductId(), "product " + line.getProductId())
+                        + " (requested " + line.getQuantity() + ")")
+                .collect(Collectors.joining(", "));
+    }
+}
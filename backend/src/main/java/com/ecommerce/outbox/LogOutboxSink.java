@@ -0,0 +1,27 @@
+package com.ecommerce.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Logs every event; useful for following the stream in development
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.outbox.log.enabled", havingValue = "true")
+public class LogOutboxSink implements OutboxSink {
+
+    @Override
+    public String getName() {
+        return "log";
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            log.info("Outbox event {}: {} {} {} {}", message.getId(), message.getAggregateType(),
+                    message.getAggregateId(), message.getEventType(), message.getPayload());
+        }
+    }
+}
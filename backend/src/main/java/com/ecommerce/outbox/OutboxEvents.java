@@ -0,0 +1,21 @@
+package com.ecommerce.outbox;
+
+/**
+ * Aggregate and event type names written to the outbox. Product events are named after the
+ * {@code ProductChangedEvent} change type, e.g. {@code PRODUCT_STOCK_CHANGED}.
+ */
+public final class OutboxEvents {
+
+    public static final String ORDER = "order";
+    public static final String PRODUCT = "product";
+
+    public static final String ORDER_PLACED = "ORDER_PLACED";
+    public static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+    public static final String ORDER_PAYMENT_STATUS_CHANGED = "ORDER_PAYMENT_STATUS_CHANGED";
+    public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+
+    static final String PRODUCT_PREFIX = "PRODUCT_";
+
+    private OutboxEvents() {
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox row as handed to sinks. {@code id} increases with every event written, so
+ * consumers can use it to drop the duplicates at-least-once delivery produces.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OutboxMessage {
+
+    private final Long id;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String eventType;
+    private final LocalDateTime createdAt;
+
+    @JsonRawValue
+    private final String payload;
+}
@@ -0,0 +1,149 @@
+package com.ecommerce.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox to every {@link OutboxSink}, oldest event first, in batches of
+ * {@code app.outbox.relay.batch-size}. A batch is locked while it is delivered and only marked
+ * published once every sink has accepted it; if any sink fails, the batch and everything after
+ * it wait for the next run. Delivery is therefore at least once, and events of one aggregate
+ * arrive in the order they were written. Several instances can relay at once: they queue on
+ * the row locks rather than deliver the same batch concurrently.
+ * <p>
+ * Published events are deleted once they are older than {@code app.outbox.retention}.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final String SELECT_BATCH = "SELECT id, aggregate_type, aggregate_id, event_type, payload, created_at " +
+            "FROM outbox_events WHERE published_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<OutboxSink> sinks;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration retention;
+
+    private final Timer lag;
+    private final Counter published;
+    private final Counter failures;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+    public OutboxRelay(NamedParameterJdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       List<OutboxSink> sinks,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${app.outbox.relay.max-batches-per-run:20}") int maxBatchesPerRun,
+                       @Value("${app.outbox.retention:P7D}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sinks = sinks;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxBatchesPerRun = Math.max(maxBatchesPerRun, 1);
+        this.retention = retention;
+
+        // From the event being written to every sink accepting it
+        this.lag = Timer.builder("outbox.lag").register(meterRegistry);
+        this.published = meterRegistry.counter("outbox.published");
+        this.failures = meterRegistry.counter("outbox.failures");
+        meterRegistry.gauge("outbox.pending", pending);
+        meterRegistry.gauge("outbox.oldest_pending.age", oldestPendingAgeMillis,
+                age -> age.get() / 1000.0);
+
+        if (sinks.isEmpty()) {
+            log.warn("No outbox sinks are enabled - outbox events will accumulate until one is");
+        } else {
+            log.info("Relaying outbox events to {}", sinks.stream().map(OutboxSink::getName).collect(Collectors.toList()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval:PT1S}")
+    public void relay() {
+        if (!sinks.isEmpty()) {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int delivered;
+                try {
+                    delivered = transactionTemplate.execute(status -> relayBatch());
+                } catch (RuntimeException e) {
+                    failures.increment();
+                    log.warn("Outbox relay failed, retrying on the next run: {}", e.getMessage());
+                    break;
+                }
+                if (delivered < batchSize) {
+                    break;
+                }
+            }
+        }
+        updateBacklog();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval:PT1H}")
+    public void deletePublished() {
+        int deleted = jdbcTemplate.update("DELETE FROM outbox_events WHERE published_at < :before",
+                Map.of("before", Timestamp.valueOf(LocalDateTime.now().minus(retention))));
+        if (deleted > 0) {
+            log.info("Deleted {} published outbox events", deleted);
+        }
+    }
+
+    private int relayBatch() {
+        List<OutboxMessage> messages = jdbcTemplate.query(SELECT_BATCH, Map.of("limit", batchSize),
+                (rs, rowNum) -> new OutboxMessage(
+                        rs.getLong("id"),
+                        rs.getString("aggregate_type"),
+                        rs.getLong("aggregate_id"),
+                        rs.getString("event_type"),
+                        rs.getTimestamp("created_at").toLocalDateTime(),
+                        rs.getString("payload")));
+        if (messages.isEmpty()) {
+            return 0;
+        }
+
+        for (OutboxSink sink : sinks) {
+            sink.publish(messages);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("UPDATE outbox_events SET published_at = :now WHERE id IN (:ids)",
+                Map.of("now", Timestamp.valueOf(now),
+                        "ids", messages.stream().map(OutboxMessage::getId).collect(Collectors.toList())));
+        for (OutboxMessage message : messages) {
+            lag.record(Math.max(Duration.between(message.getCreatedAt(), now).toMillis(), 0), TimeUnit.MILLISECONDS);
+        }
+        published.increment(messages.size());
+        return messages.size();
+    }
+
+    private void updateBacklog() {
+        jdbcTemplate.query("SELECT COUNT(*) AS pending, MIN(created_at) AS oldest FROM outbox_events " +
+                "WHERE published_at IS NULL", rs -> {
+            pending.set(rs.getLong("pending"));
+            Timestamp oldest = rs.getTimestamp("oldest");
+            oldestPendingAgeMillis.set(oldest != null
+                    ? Math.max(Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toMillis(), 0)
+                    : 0);
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.outbox;
+
+import java.util.List;
+
+/**
+ * A destination for outbox events. The relay hands each sink batches in event order and only
+ * marks a batch published once every sink has accepted it, so a sink that fails part way sees
+ * the whole batch again. Throwing is how a sink refuses a batch.
+ */
+public interface OutboxSink {
+
+    String getName();
+
+    void publish(List<OutboxMessage> messages);
+}
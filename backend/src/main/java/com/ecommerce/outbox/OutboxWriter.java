@@ -0,0 +1,125 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.event.ProductChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes outbox events in the caller's transaction. Events appended during a transaction are
+ * held until just before it commits and then inserted as one JDBC batch, so they commit or roll
+ * back with the change they describe.
+ * <p>
+ * Callers append after reading or writing the aggregate, and concurrent writes to one aggregate
+ * are serialized by its row lock or version check. Events of one aggregate therefore get
+ * increasing ids in the order their changes committed, which is the order the relay delivers.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private static final String INSERT = "INSERT INTO outbox_events " +
+            "(aggregate_type, aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void append(String aggregateType, Long aggregateId, String eventType, Object payload) {
+        PendingEvent event = new PendingEvent(aggregateType, aggregateId, eventType, toJson(payload),
+                LocalDateTime.now());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(event));
+            return;
+        }
+        pendingEvents().add(event);
+    }
+
+    // Every stock write publishes this inside its transaction, so stock changes land in the outbox with it
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        append(OutboxEvents.PRODUCT, event.getProductId(), OutboxEvents.PRODUCT_PREFIX + event.getType().name(),
+                ProductEventPayload.fromEvent(event));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PendingEvent> pendingEvents() {
+        List<PendingEvent> pending = (List<PendingEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        List<PendingEvent> events = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // A REQUIRES_NEW transaction inside this one collects its own events
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(OutboxWriter.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(OutboxWriter.this, events);
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                insert(events);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OutboxWriter.this);
+            }
+        });
+        return events;
+    }
+
+    private void insert(List<PendingEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.aggregateType);
+            ps.setLong(2, event.aggregateId);
+            ps.setString(3, event.eventType);
+            ps.setString(4, event.payload);
+            ps.setTimestamp(5, Timestamp.valueOf(event.createdAt));
+        });
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize outbox event: " + e.getOriginalMessage());
+        }
+    }
+
+    private static final class PendingEvent {
+
+        private final String aggregateType;
+        private final Long aggregateId;
+        private final String eventType;
+        private final String payload;
+        private final LocalDateTime createdAt;
+
+        private PendingEvent(String aggregateType, Long aggregateId, String eventType, String payload,
+                             LocalDateTime createdAt) {
+            this.aggregateType = aggregateType;
+            this.aggregateId = aggregateId;
+            this.eventType = eventType;
+            this.payload = payload;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.ecommerce.outbox;
+
+import com.ecommerce.event.ProductChangedEvent;
+import lombok.Data;
+
+@Data
+public class ProductEventPayload {
+    private Long productId;
+    private Long categoryId;
+    private boolean active;
+    private int stockQuantity;
+
+    public static ProductEventPayload fromEvent(ProductChangedEvent event) {
+        ProductEventPayload payload = new ProductEventPayload();
+        payload.setProductId(event.getProductId());
+        payload.setCategoryId(event.getCategoryId());
+        payload.setActive(event.isActive());
+        payload.setStockQuantity(event.getStockQuantity());
+        return payload;
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.pagination;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.math.BigDecimal;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opaque, URL-safe encoding of a keyset scroll position. The position is the (sort key, id)
+ * of the last row a client has seen; each value carries its type so it can be bound back
+ * into the keyset predicate exactly as it was read.
+ */
+public final class KeysetCursor {
+
+    private static final String ENTRY_SEPARATOR = "\n";
+    private static final String FIELD_SEPARATOR = "\t";
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset) || keyset.isInitial()) {
+            return null;
+        }
+        StringBuilder encoded = new StringBuilder();
+        keyset.getKeys().forEach((property, value) -> {
+            if (encoded.length() > 0) {
+                encoded.append(ENTRY_SEPARATOR);
+            }
+            encoded.append(property).append(FIELD_SEPARATOR)
+                    .append(typeOf(value)).append(FIELD_SEPARATOR)
+                    .append(URLEncoder.encode(value.toString(), StandardCharsets.UTF_8));
+        });
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(encoded.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Rejects cursors that were issued for a different sort, since their keys would not match the query
+    public static KeysetScrollPosition decode(String cursor, Set<String> expectedProperties) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (String entry : decoded.split(ENTRY_SEPARATOR)) {
+                String[] fields = entry.split(FIELD_SEPARATOR, 3);
+                keys.put(fields[0], parse(fields[1], URLDecoder.decode(fields[2], StandardCharsets.UTF_8)));
+            }
+            if (!keys.keySet().equals(expectedProperties)) {
+                throw new RuntimeException("Cursor does not match the requested sort");
+            }
+            return ScrollPosition.forward(keys);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    private static String typeOf(Object value) {
+        if (value instanceof Long) return "L";
+        if (value instanceof Integer) return "I";
+        if (value instanceof Double) return "D";
+        if (value instanceof BigDecimal) return "B";
+        if (value instanceof LocalDateTime) return "T";
+        if (value instanceof String) return "S";
+        throw new IllegalStateException("Unsupported cursor value type: " + value.getClass().getName());
+    }
+
+    private static Object parse(String type, String value) {
+        return switch (type) {
+            case "L" -> Long.valueOf(value);
+            case "I" -> Integer.valueOf(value);
+            case "D" -> Double.valueOf(value);
+            case "B" -> new BigDecimal(value);
+            case "T" -> LocalDateTime.parse(value);
+            case "S" -> value;
+            default -> throw new IllegalArgumentException("Unknown cursor value type: " + type);
+        };
+    }
+}
@@ -0,0 +1,221 @@
+package com.ecommerce.pipeline;
+
+import com.ecommerce.entity.Order;
+import com.ecommerce.event.OrderConfirmedEvent;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.PaymentService;
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Everything that happens to an order after checkout accepts it. Accepted orders go through
+ * payment initiation and confirmation, and confirmed orders through notification and analytics,
+ * each stage on its own pool of {@code app.orders.pipeline.threads} workers behind a queue of
+ * {@code app.orders.pipeline.queue-capacity}.
+ * <p>
+ * A full stage holds back the stage feeding it. Checkout itself never waits: when payment is
+ * full the order is left pending in the database, and a sweep every
+ * {@code app.orders.pipeline.sweep-interval} feeds such orders back in as room frees up. The
+ * same sweep picks up orders stranded by a failure or a restart once they are older than
+ * {@code app.orders.pipeline.sweep-grace}.
+ * <p>
+ * Without a Stripe key there is no payment to initiate. Orders then stay pending, unless
+ * {@code app.payments.simulate-settlement} is set, in which case they are confirmed as if paid.
+ */
+@Component
+@Slf4j
+public class OrderPipeline {
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final OrderService orderService;
+    private final PaymentService paymentService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration sweepGrace;
+    private final boolean simulateSettlement;
+    private final boolean paymentsEnabled;
+
+    private final PipelineStage payment;
+    private final PipelineStage confirmation;
+    private final PipelineStage notification;
+    private final PipelineStage analytics;
+
+    // Orders between acceptance and the end of confirmation, so the sweep doesn't queue them twice
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Counter deferred;
+    private final Counter notificationsSent;
+    private final Counter ordersConfirmed;
+    private final DistributionSummary orderValue;
+    private final DistributionSummary orderUnits;
+
+    public OrderPipeline(OrderRepository orderRepository,
+                         OrderService orderService,
+                         PaymentService paymentService,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${app.orders.pipeline.threads:4}") int threads,
+                         @Value("${app.orders.pipeline.queue-capacity:500}") int queueCapacity,
+                         @Value("${app.orders.pipeline.sweep-grace:PT1M}") Duration sweepGrace,
+                         @Value("${app.payments.simulate-settlement:false}") boolean simulateSettlement) {
+        this.orderRepository = orderRepository;
+        this.orderService = orderService;
+        this.paymentService = paymentService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.sweepGrace = sweepGrace;
+        this.simulateSettlement = simulateSettlement;
+        this.paymentsEnabled = paymentService.isConfigured() || simulateSettlement;
+        if (!paymentsEnabled) {
+            log.warn("Stripe is not configured and simulated settlement is off - orders will stay pending");
+        } else if (simulateSettlement && !paymentService.isConfigured()) {
+            log.warn("Simulated settlement is on - orders will be confirmed without payment");
+        }
+
+        int workers = Math.max(threads, 1);
+        int capacity = Math.max(queueCapacity, 1);
+        this.payment = new PipelineStage("payment", workers, capacity, meterRegistry);
+        this.confirmation = new PipelineStage("confirmation", workers, capacity, meterRegistry);
+        this.notification = new PipelineStage("notification", workers, capacity, meterRegistry);
+        this.analytics = new PipelineStage("analytics", workers, capacity, meterRegistry);
+
+        this.deferred = meterRegistry.counter("orders.pipeline.deferred");
+        this.notificationsSent = meterRegistry.counter("orders.notifications.sent");
+        this.ordersConfirmed = meterRegistry.counter("orders.confirmed");
+        this.orderValue = DistributionSummary.builder("orders.value").baseUnit("usd").register(meterRegistry);
+        this.orderUnits = DistributionSummary.builder("orders.units").register(meterRegistry);
+        meterRegistry.gaugeCollectionSize("orders.pipeline.in_flight", List.of(), inFlight);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        if (paymentsEnabled) {
+            accept(event.getOrderId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderConfirmed(OrderConfirmedEvent event) {
+        notification.put(() -> notify(event));
+        analytics.put(() -> record(event));
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.pipeline.sweep-interval:PT30S}")
+    public void sweep() {
+        int room = payment.remainingCapacity();
+        if (!paymentsEnabled || room == 0) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(sweepGrace);
+        List<Long> orderIds = readOnlyTransaction.execute(status ->
+                orderRepository.findAwaitingPaymentIds(before, PageRequest.of(0, room)));
+        int resumed = 0;
+        for (Long orderId : orderIds) {
+            if (inFlight.contains(orderId)) {
+                continue;
+            }
+            if (!accept(orderId)) {
+                break;
+            }
+            resumed++;
+        }
+        if (resumed > 0) {
+            log.info("Resumed {} orders awaiting payment", resumed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (PipelineStage stage : List.of(payment, confirmation, notification, analytics)) {
+            stage.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+
+    private boolean accept(Long orderId) {
+        if (!inFlight.add(orderId)) {
+            return true;
+        }
+        if (!payment.offer(() -> initiatePayment(orderId))) {
+            inFlight.remove(orderId);
+            deferred.increment();
+            log.debug("Order pipeline is full, order {} will be picked up by the next sweep", orderId);
+            return false;
+        }
+        return true;
+    }
+
+    private void initiatePayment(Long orderId) {
+        boolean handedOver = false;
+        try {
+            Order order = readOnlyTransaction.execute(status -> orderRepository.findById(orderId)
+                    .filter(OrderPipeline::isAwaitingPayment)
+                    .orElse(null));
+            if (order == null) {
+                return;
+            }
+            // Outside any transaction, so no connection is held while the payment provider answers
+            PaymentIntent intent = paymentService.createPaymentIntent(order);
+            if (intent != null) {
+                orderService.recordPaymentIntent(orderId, intent.getId());
+            }
+            confirmation.put(() -> confirm(orderId, intent));
+            handedOver = true;
+        } catch (StripeException e) {
+            throw new RuntimeException("Payment initiation failed for order " + orderId + ": " + e.getMessage(), e);
+        } finally {
+            if (!handedOver) {
+                inFlight.remove(orderId);
+            }
+        }
+    }
+
+    private void confirm(Long orderId, PaymentIntent intent) {
+        try {
+            // Simulated payments settle at once; live ones are confirmed when the shopper completes the intent
+            if (intent == null ? simulateSettlement : "succeeded".equals(intent.getStatus())) {
+                orderService.confirmPayment(orderId);
+            }
+        } finally {
+            inFlight.remove(orderId);
+        }
+    }
+
+    private void notify(OrderConfirmedEvent event) {
+        log.info("Sending order confirmation for {} to user {}", event.getOrderNumber(), event.getFirebaseUid());
+        notificationsSent.increment();
+    }
+
+    private void record(OrderConfirmedEvent event) {
+        ordersConfirmed.increment();
+        if (event.getTotalAmount() != null) {
+            orderValue.record(event.getTotalAmount().doubleValue());
+        }
+        orderUnits.record(event.getItemCount());
+    }
+
+    private static boolean isAwaitingPayment(Order order) {
+        return order.getStatus() == Order.OrderStatus.PENDING
+                && order.getPaymentStatus() == Order.PaymentStatus.PENDING
+                && order.getPaymentIntentId() == null;
+    }
+}
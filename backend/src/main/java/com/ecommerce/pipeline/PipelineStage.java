@@ -0,0 +1,104 @@
+package com.ecommerce.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One stage of the order pipeline: a fixed pool of workers behind a bounded queue. Records how
+ * long tasks wait in the queue and how long they run, tagged with the stage name.
+ */
+@Slf4j
+final class PipelineStage {
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTime;
+    private final Timer runTime;
+    private final Counter failures;
+
+    PipelineStage(String name, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+        this.name = name;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-" + name + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        // put() bypasses execute(), so the workers have to exist before anything is queued
+        executor.prestartAllCoreThreads();
+
+        Tags tags = Tags.of("stage", name);
+        this.waitTime = Timer.builder("orders.pipeline.wait").tags(tags).register(meterRegistry);
+        this.runTime = Timer.builder("orders.pipeline.latency").tags(tags).register(meterRegistry);
+        this.failures = meterRegistry.counter("orders.pipeline.failures", tags);
+        meterRegistry.gauge("orders.pipeline.backlog", tags, executor, pool -> pool.getQueue().size());
+    }
+
+    // For callers that have somewhere else to leave the work when the stage is full
+    boolean offer(Runnable task) {
+        try {
+            executor.execute(timed(task));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    // Waits for room, so a slow stage holds back the one feeding it
+    void put(Runnable task) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Order pipeline stage " + name + " is shut down");
+        }
+        try {
+            executor.getQueue().put(timed(task));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for order pipeline stage " + name);
+        }
+    }
+
+    int remainingCapacity() {
+        return executor.getQueue().remainingCapacity();
+    }
+
+    void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Order pipeline stage {} stopped with {} tasks queued", name, executor.getQueue().size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private Runnable timed(Runnable task) {
+        long queuedAt = System.nanoTime();
+        return () -> {
+            long startedAt = System.nanoTime();
+            waitTime.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.error("Order pipeline stage {} failed: {}", name, e.getMessage(), e);
+            } finally {
+                runTime.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            }
+        };
+    }
+}
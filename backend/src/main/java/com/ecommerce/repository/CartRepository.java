@@ -13,8 +13,16 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     
     Optional<Cart> findByUserId(Long userId);
     
+    Optional<Cart> findByUserFirebaseUid(String firebaseUid);
+    
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.user.id = :userId")
     Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);
     
+    @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product WHERE c.user.id = :userId")
+    Optional<Cart> findByUserIdWithItemsAndProducts(@Param("userId") Long userId);
+    
+    @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product WHERE c.user.firebaseUid = :firebaseUid")
+    Optional<Cart> findByUserFirebaseUidWithItemsAndProducts(@Param("firebaseUid") String firebaseUid);
+    
     void deleteByUserId(Long userId);
 }
@@ -25,7 +25,24 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId AND p.status = 'ACTIVE'")
     long countProductsInCategory(Long categoryId);
     
+    @Query("SELECT p.category.id AS categoryId, COUNT(p) AS productCount FROM Product p " +
+           "WHERE p.status = 'ACTIVE' GROUP BY p.category.id")
+    List<CategoryProductCount> countActiveProductsPerCategory();
+    
+    @Query("SELECT c.id AS categoryId, parent.id AS parentId FROM Category c LEFT JOIN c.parent parent")
+    List<CategoryParent> findAllParentIds();
+    
     boolean existsByName(String name);
     
     boolean existsBySlug(String slug);
+    
+    interface CategoryProductCount {
+        Long getCategoryId();
+        Long getProductCount();
+    }
+    
+    interface CategoryParent {
+        Long getCategoryId();
+        Long getParentId();
+    }
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,9 +14,20 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     List<OrderItem> findByOrderId(Long orderId);
     
+    @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItem> findByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
     @Query("SELECT oi FROM OrderItem oi WHERE oi.product.id = :productId")
     List<OrderItem> findByProductId(@Param("productId") Long productId);
     
     @Query("SELECT SUM(oi.quantity) FROM OrderItem oi WHERE oi.product.id = :productId")
     Integer getTotalQuantitySoldForProduct(@Param("productId") Long productId);
+    
+    @Query("SELECT oi.product.id AS productId, SUM(oi.quantity) AS quantitySold FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductSales> getTotalQuantitySoldPerProduct();
+    
+    interface ProductSales {
+        Long getProductId();
+        Long getQuantitySold();
+    }
 }
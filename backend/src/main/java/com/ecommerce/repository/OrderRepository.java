@@ -1,15 +1,24 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.Order;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -20,9 +29,30 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Page<Order> findByStatusOrderByCreatedAtDesc(Order.OrderStatus status, Pageable pageable);
     
+    Window<Order> findByUserFirebaseUid(String firebaseUid, ScrollPosition position, Sort sort, Limit limit);
+    
+    Window<Order> findByStatus(Order.OrderStatus status, ScrollPosition position, Sort sort, Limit limit);
+    
     @Query("SELECT o FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC")
     Page<Order> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId, Pageable pageable);
     
+    // Forward-only and read-only; the caller must consume the stream inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
+           "AND (:from IS NULL OR o.createdAt >= :from) AND (:to IS NULL OR o.createdAt < :to) " +
+           "ORDER BY o.id")
+    Stream<Order> streamForExport(@Param("status") Order.OrderStatus status,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+    
+    // Accepted orders whose payment was never initiated, oldest first
+    @Query("SELECT o.id FROM Order o WHERE o.status = 'PENDING' AND o.paymentStatus = 'PENDING' " +
+           "AND o.paymentIntentId IS NULL AND o.createdAt < :before ORDER BY o.id")
+    List<Long> findAwaitingPaymentIds(@Param("before") LocalDateTime before, Pageable pageable);
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     long countByStatus(@Param("status") Order.OrderStatus status);
     
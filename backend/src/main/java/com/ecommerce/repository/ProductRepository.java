@@ -1,14 +1,20 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,42 +23,101 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     Optional<Product> findBySlug(String slug);
     
+    @Query("SELECT p.id FROM Product p WHERE p.slug = :slug")
+    Optional<Long> findIdBySlug(@Param("slug") String slug);
+    
     Optional<Product> findBySku(String sku);
     
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByStatus(Product.ProductStatus status, Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
+    Window<Product> findByStatus(Product.ProductStatus status, ScrollPosition position, Sort sort, Limit limit);
+    
+    @EntityGraph(attributePaths = "category")
     Page<Product> findByCategoryIdAndStatus(Long categoryId, Product.ProductStatus status, Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' AND p.isFeatured = true")
     List<Product> findFeaturedProducts(Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' AND " +
            "(LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(p.brand) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     Page<Product> searchProducts(@Param("keyword") String keyword, Pageable pageable);
     
+    @Query("SELECT p.id FROM Product p WHERE p.status = 'ACTIVE'")
+    List<Long> findActiveProductIds();
+    
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.tags WHERE p.id IN :ids")
+    List<Product> findAllByIdWithTags(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllByIdWithCategory(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id AS productId, image AS attribute FROM Product p JOIN p.imageUrls image WHERE p.id IN :ids")
+    List<ProductAttribute> findImageUrlsByProductIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id AS productId, tag AS attribute FROM Product p JOIN p.tags tag WHERE p.id IN :ids")
+    List<ProductAttribute> findTagsByProductIds(@Param("ids") Collection<Long> ids);
+    
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' AND " +
            "p.price BETWEEN :minPrice AND :maxPrice")
     Page<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice, 
                                    @Param("maxPrice") BigDecimal maxPrice, 
                                    Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' AND p.brand = :brand")
     Page<Product> findByBrand(@Param("brand") String brand, Pageable pageable);
     
     @Query("SELECT DISTINCT p.brand FROM Product p WHERE p.status = 'ACTIVE' AND p.brand IS NOT NULL")
     List<String> findAllBrands();
     
-    @Query("SELECT p FROM Product p WHERE p.stockQuantity <= :threshold")
-    List<Product> findLowStockProducts(@Param("threshold") Integer threshold);
-    
     @Query("SELECT COUNT(p) FROM Product p WHERE p.status = 'ACTIVE'")
     long countActiveProducts();
     
-    @Query("SELECT p FROM Product p ORDER BY p.createdAt DESC")
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' ORDER BY p.createdAt DESC, p.id DESC")
     List<Product> findLatestProducts(Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' ORDER BY p.averageRating DESC")
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' ORDER BY p.averageRating DESC, p.id DESC")
     List<Product> findTopRatedProducts(Pageable pageable);
+    
+    @Query("SELECT p.id AS productId, p.stockQuantity AS stockQuantity, p.status AS status FROM Product p")
+    List<StockLevel> findStockLevels();
+    
+    @Query("SELECT p.id AS productId, p.stockQuantity AS stockQuantity, p.status AS status FROM Product p WHERE p.id IN :ids")
+    List<StockLevel> findStockLevelsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.id AS productId, p.category.id AS categoryId, p.stockQuantity AS stockQuantity, " +
+           "p.lowStockThreshold AS lowStockThreshold FROM Product p WHERE p.status <> 'INACTIVE'")
+    List<StockThresholdView> findStockThresholds();
+    
+    @Query("SELECT p.id AS productId, p.category.id AS categoryId, p.stockQuantity AS stockQuantity, " +
+           "p.lowStockThreshold AS lowStockThreshold FROM Product p " +
+           "WHERE p.status <> 'INACTIVE' AND p.id IN :ids")
+    List<StockThresholdView> findStockThresholdsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    interface ProductAttribute {
+        Long getProductId();
+        String getAttribute();
+    }
+    
+    interface StockLevel {
+        Long getProductId();
+        Integer getStockQuantity();
+        Product.ProductStatus getStatus();
+    }
+    
+    interface StockThresholdView {
+        Long getProductId();
+        Long getCategoryId();
+        Integer getStockQuantity();
+        Integer getLowStockThreshold();
+    }
 }
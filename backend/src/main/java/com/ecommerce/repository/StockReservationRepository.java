@@ -0,0 +1,31 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockReservation r WHERE r.firebaseUid = :firebaseUid")
+    int deleteByFirebaseUid(@Param("firebaseUid") String firebaseUid);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockReservation r WHERE r.holdId IN :holdIds")
+    int deleteByHoldIdIn(@Param("holdIds") Collection<String> holdIds);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StockReservation r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
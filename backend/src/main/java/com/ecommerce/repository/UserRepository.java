@@ -1,6 +1,7 @@
 package com.ecommerce.repository;
 
 import com.ecommerce.entity.User;
+import com.ecommerce.identity.UserIdentity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,6 +14,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByFirebaseUid(String firebaseUid);
     
+    // A projection, so the user's inverse one-to-one cart isn't loaded along with it
+    @Query("SELECT new com.ecommerce.identity.UserIdentity(u.id, u.firebaseUid, u.role, u.isActive) " +
+           "FROM User u WHERE u.firebaseUid = :firebaseUid")
+    Optional<UserIdentity> findIdentityByFirebaseUid(@Param("firebaseUid") String firebaseUid);
+    
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
@@ -0,0 +1,20 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.response.FacetedSearchResponse;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@RequiredArgsConstructor
+public class FacetResult {
+
+    private final List<Long> productIds;
+    private final long totalHits;
+    private final Map<String, Long> brandCounts;
+    private final Map<Long, Long> categoryCounts;
+    private final List<FacetedSearchResponse.PriceRangeCount> priceRangeCounts;
+    private final Map<Integer, Long> ratingCounts;
+}
@@ -0,0 +1,343 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.request.FacetedSearchRequest;
+import com.ecommerce.dto.response.FacetedSearchResponse;
+import com.ecommerce.entity.Product;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmap index over the active catalog with one compressed bitmap per brand, category,
+ * price bucket and rating threshold. Every product gets a dense int ordinal that is kept
+ * for the lifetime of the index, so a product that is deactivated and later reactivated
+ * lands back on the same bit.
+ */
+public class ProductFacetIndex {
+
+    public static final int MAX_RATING_THRESHOLD = 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long NO_CATEGORY = -1L;
+
+    private final long[] priceBoundaries;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+    private double[] ratings = new double[INITIAL_CAPACITY];
+    private long[] createdAt = new long[INITIAL_CAPACITY];
+    private String[] brands = new String[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    private int nextOrdinal = 0;
+
+    private final RoaringBitmap active = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> brandBitmaps = new TreeMap<>();
+    private final Map<Long, RoaringBitmap> categoryBitmaps = new HashMap<>();
+    private final RoaringBitmap[] priceBucketBitmaps;
+    // ratingBitmaps[r - 1] holds every product rated r or above
+    private final RoaringBitmap[] ratingBitmaps = new RoaringBitmap[MAX_RATING_THRESHOLD];
+
+    public ProductFacetIndex(BigDecimal[] priceBoundaries) {
+        this.priceBoundaries = Arrays.stream(priceBoundaries)
+                .mapToLong(ProductFacetIndex::toCents)
+                .sorted()
+                .toArray();
+        this.priceBucketBitmaps = new RoaringBitmap[this.priceBoundaries.length + 1];
+        for (int i = 0; i < priceBucketBitmaps.length; i++) {
+            priceBucketBitmaps[i] = new RoaringBitmap();
+        }
+        for (int i = 0; i < ratingBitmaps.length; i++) {
+            ratingBitmaps[i] = new RoaringBitmap();
+        }
+    }
+
+    public void index(Product product) {
+        if (product.getStatus() != Product.ProductStatus.ACTIVE) {
+            remove(product.getId());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.computeIfAbsent(product.getId(), id -> assignOrdinal(id));
+            clearFacets(ordinal);
+
+            priceCents[ordinal] = toCents(product.getPrice());
+            ratings[ordinal] = product.getAverageRating() != null ? product.getAverageRating() : 0.0;
+            createdAt[ordinal] = product.getCreatedAt() != null
+                    ? product.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : 0L;
+            brands[ordinal] = product.getBrand();
+            categoryIds[ordinal] = product.getCategory() != null ? product.getCategory().getId() : NO_CATEGORY;
+
+            if (brands[ordinal] != null) {
+                brandBitmaps.computeIfAbsent(brands[ordinal], b -> new RoaringBitmap()).add(ordinal);
+            }
+            if (categoryIds[ordinal] != NO_CATEGORY) {
+                categoryBitmaps.computeIfAbsent(categoryIds[ordinal], c -> new RoaringBitmap()).add(ordinal);
+            }
+            priceBucketBitmaps[priceBucket(priceCents[ordinal])].add(ordinal);
+            for (int threshold = 1; threshold <= MAX_RATING_THRESHOLD && ratings[ordinal] >= threshold; threshold++) {
+                ratingBitmaps[threshold - 1].add(ordinal);
+            }
+            active.add(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null && active.contains(ordinal)) {
+                clearFacets(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return active.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public FacetResult search(FacetedSearchRequest request) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap brandFilter = unionOf(brandBitmaps, request.getBrand());
+            RoaringBitmap categoryFilter = unionOf(categoryBitmaps, request.getCategoryId());
+            RoaringBitmap priceFilter = priceFilter(request.getMinPrice(), request.getMaxPrice());
+            RoaringBitmap ratingFilter = ratingFilter(request.getMinRating());
+
+            RoaringBitmap matches = intersect(brandFilter, categoryFilter, priceFilter, ratingFilter);
+
+            Map<String, Long> brandCounts = new LinkedHashMap<>();
+            RoaringBitmap brandBase = intersect(categoryFilter, priceFilter, ratingFilter);
+            brandBitmaps.forEach((brand, bitmap) -> putIfPositive(brandCounts, brand,
+                    RoaringBitmap.andCardinality(bitmap, brandBase)));
+
+            Map<Long, Long> categoryCounts = new LinkedHashMap<>();
+            RoaringBitmap categoryBase = intersect(brandFilter, priceFilter, ratingFilter);
+            categoryBitmaps.forEach((categoryId, bitmap) -> putIfPositive(categoryCounts, categoryId,
+                    RoaringBitmap.andCardinality(bitmap, categoryBase)));
+
+            List<FacetedSearchResponse.PriceRangeCount> priceCounts = new ArrayList<>();
+            RoaringBitmap priceBase = intersect(brandFilter, categoryFilter, ratingFilter);
+            for (int bucket = 0; bucket < priceBucketBitmaps.length; bucket++) {
+                priceCounts.add(new FacetedSearchResponse.PriceRangeCount(
+                        bucket == 0 ? BigDecimal.ZERO : fromCents(priceBoundaries[bucket - 1]),
+                        bucket == priceBoundaries.length ? null : fromCents(priceBoundaries[bucket]),
+                        RoaringBitmap.andCardinality(priceBucketBitmaps[bucket], priceBase)));
+            }
+
+            Map<Integer, Long> ratingCounts = new LinkedHashMap<>();
+            RoaringBitmap ratingBase = intersect(brandFilter, categoryFilter, priceFilter);
+            for (int threshold = MAX_RATING_THRESHOLD; threshold >= 1; threshold--) {
+                ratingCounts.put(threshold, (long) RoaringBitmap.andCardinality(ratingBitmaps[threshold - 1], ratingBase));
+            }
+
+            int offset = request.getPage() * request.getSize();
+            List<Long> pageIds = topOrdinals(matches, ordering(request.getSortBy(), request.getSortDir()),
+                    offset, request.getSize());
+
+            return new FacetResult(pageIds, matches.getLongCardinality(),
+                    brandCounts, categoryCounts, priceCounts, ratingCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int assignOrdinal(Long productId) {
+        int ordinal = nextOrdinal++;
+        if (ordinal == productIds.length) {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            brands = Arrays.copyOf(brands, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+        }
+        productIds[ordinal] = productId;
+        categoryIds[ordinal] = NO_CATEGORY;
+        return ordinal;
+    }
+
+    private void clearFacets(int ordinal) {
+        if (!active.contains(ordinal)) {
+            return;
+        }
+        removeFrom(brandBitmaps, brands[ordinal], ordinal);
+        removeFrom(categoryBitmaps, categoryIds[ordinal], ordinal);
+        priceBucketBitmaps[priceBucket(priceCents[ordinal])].remove(ordinal);
+        for (RoaringBitmap ratingBitmap : ratingBitmaps) {
+            ratingBitmap.remove(ordinal);
+        }
+        active.remove(ordinal);
+    }
+
+    private <K> void removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        if (key == null) {
+            return;
+        }
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private <K> RoaringBitmap unionOf(Map<K, RoaringBitmap> bitmaps, List<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        RoaringBitmap union = new RoaringBitmap();
+        for (K key : keys) {
+            RoaringBitmap bitmap = bitmaps.get(key);
+            if (bitmap != null) {
+                union.or(bitmap);
+            }
+        }
+        return union;
+    }
+
+    private RoaringBitmap priceFilter(BigDecimal minPrice, BigDecimal maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        long min = minPrice != null ? toCents(minPrice) : 0L;
+        long max = maxPrice != null ? toCents(maxPrice) : Long.MAX_VALUE;
+
+        RoaringBitmap result = new RoaringBitmap();
+        for (int bucket = 0; bucket < priceBucketBitmaps.length; bucket++) {
+            long low = bucket == 0 ? 0L : priceBoundaries[bucket - 1];
+            long high = bucket == priceBoundaries.length ? Long.MAX_VALUE : priceBoundaries[bucket] - 1;
+            if (high < min || low > max) {
+                continue;
+            }
+            if (low >= min && high <= max) {
+                result.or(priceBucketBitmaps[bucket]);
+            } else {
+                // Range boundary falls inside this bucket, check its members individually
+                IntIterator it = priceBucketBitmaps[bucket].getIntIterator();
+                while (it.hasNext()) {
+                    int ordinal = it.next();
+                    if (priceCents[ordinal] >= min && priceCents[ordinal] <= max) {
+                        result.add(ordinal);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap ratingFilter(Double minRating) {
+        if (minRating == null || minRating <= 0) {
+            return null;
+        }
+        int threshold = (int) Math.min(Math.floor(minRating), MAX_RATING_THRESHOLD);
+        RoaringBitmap candidates = threshold >= 1 ? ratingBitmaps[threshold - 1] : active;
+        if (minRating == threshold) {
+            return candidates;
+        }
+        RoaringBitmap result = new RoaringBitmap();
+        IntIterator it = candidates.getIntIterator();
+        while (it.hasNext()) {
+            int ordinal = it.next();
+            if (ratings[ordinal] >= minRating) {
+                result.add(ordinal);
+            }
+        }
+        return result;
+    }
+
+    private RoaringBitmap intersect(RoaringBitmap... filters) {
+        RoaringBitmap result = active.clone();
+        for (RoaringBitmap filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private Comparator<Integer> ordering(String sortBy, String sortDir) {
+        Comparator<Integer> comparator;
+        if ("price".equals(sortBy)) {
+            comparator = Comparator.comparingLong(ordinal -> priceCents[ordinal]);
+        } else if ("averageRating".equals(sortBy)) {
+            comparator = Comparator.comparingDouble(ordinal -> ratings[ordinal]);
+        } else {
+            comparator = Comparator.comparingLong(ordinal -> createdAt[ordinal]);
+        }
+        comparator = comparator.thenComparingLong(ordinal -> productIds[ordinal]);
+        return "asc".equalsIgnoreCase(sortDir) ? comparator : comparator.reversed();
+    }
+
+    private List<Long> topOrdinals(RoaringBitmap matches, Comparator<Integer> ordering, int offset, int limit) {
+        int window = offset + limit;
+        // Max-heap on the requested ordering keeps only the first offset + limit results
+        PriorityQueue<Integer> top = new PriorityQueue<>(ordering.reversed());
+        IntIterator it = matches.getIntIterator();
+        while (it.hasNext()) {
+            top.offer(it.next());
+            if (top.size() > window) {
+                top.poll();
+            }
+        }
+
+        List<Integer> ranked = new ArrayList<>(top);
+        ranked.sort(ordering);
+
+        List<Long> result = new ArrayList<>(limit);
+        for (int i = offset; i < ranked.size(); i++) {
+            result.add(productIds[ranked.get(i)]);
+        }
+        return result;
+    }
+
+    private int priceBucket(long cents) {
+        for (int i = 0; i < priceBoundaries.length; i++) {
+            if (cents < priceBoundaries[i]) {
+                return i;
+            }
+        }
+        return priceBoundaries.length;
+    }
+
+    private static <K> void putIfPositive(Map<K, Long> counts, K key, long count) {
+        if (count > 0) {
+            counts.put(key, count);
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount != null ? amount.movePointRight(2).longValue() : 0L;
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.request.FacetedSearchRequest;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Service
+@Slf4j
+public class ProductFacetService {
+
+    private static final int INDEX_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductFacetIndex index;
+
+    public ProductFacetService(ProductRepository productRepository,
+                               @Value("${app.search.facets.price-boundaries:25,50,100,250,500,1000}") BigDecimal[] priceBoundaries) {
+        this.productRepository = productRepository;
+        this.index = new ProductFacetIndex(priceBoundaries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+
+        List<Long> productIds = productRepository.findActiveProductIds();
+        for (int from = 0; from < productIds.size(); from += INDEX_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + INDEX_BATCH_SIZE, productIds.size()));
+            productRepository.findAllById(batch).forEach(index::index);
+        }
+
+        log.info("Built product facet index with {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    // Filtered before the listener's transaction starts, so checkouts don't each take a second connection
+    @TransactionalEventListener(fallbackExecution = true, condition = "!#event.stockOnly")
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productRepository.findById(event.getProductId())
+                .ifPresentOrElse(index::index, () -> index.remove(event.getProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        productRepository.findAllById(event.getProductIds()).forEach(index::index);
+    }
+
+    public FacetResult search(FacetedSearchRequest request) {
+        return index.search(request);
+    }
+}
@@ -0,0 +1,238 @@
+package com.ecommerce.search;
+
+import com.ecommerce.entity.Product;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenized inverted index over product name, brand, tags and description.
+ * Thread-safe; reads share a lock and only block while a document is being (re)indexed.
+ */
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float BRAND_WEIGHT = 2.5f;
+    private static final float TAG_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Query terms also match longer indexed terms ("phone" -> "phones"), at a discount
+    private static final float PREFIX_MATCH_BOOST = 0.5f;
+
+    private final int maxPrefixExpansions;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+
+    public ProductSearchIndex(int maxPrefixExpansions) {
+        this.maxPrefixExpansions = maxPrefixExpansions;
+    }
+
+    public void index(Product product) {
+        Map<String, Float> termWeights = new HashMap<>();
+        addField(termWeights, product.getName(), NAME_WEIGHT);
+        addField(termWeights, product.getBrand(), BRAND_WEIGHT);
+        if (product.getTags() != null) {
+            for (String tag : product.getTags()) {
+                addField(termWeights, tag, TAG_WEIGHT);
+            }
+        }
+        addField(termWeights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        long createdAt = product.getCreatedAt() != null
+                ? product.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : 0L;
+        Document document = new Document(termWeights.keySet(), createdAt);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.getId());
+            termWeights.forEach((term, weight) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(product.getId(), weight));
+            documents.put(product.getId(), document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks every document matching at least one query term and returns the requested window.
+     * Documents matching more of the query terms always rank first; ties fall back to newest first.
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || offset < 0 || limit <= 0) {
+            return new SearchHits(Collections.emptyList(), 0);
+        }
+
+        Map<Long, Hit> hits = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = Math.max(documents.size(), 1);
+            for (String queryTerm : queryTerms) {
+                Map<Long, Float> termScores = new HashMap<>();
+                scoreTerm(termScores, queryTerm, postings.get(queryTerm), 1.0f, documentCount);
+
+                int expansions = 0;
+                NavigableMap<String, Map<Long, Float>> prefixed =
+                        postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false);
+                for (Map.Entry<String, Map<Long, Float>> entry : prefixed.entrySet()) {
+                    if (expansions++ >= maxPrefixExpansions) {
+                        break;
+                    }
+                    scoreTerm(termScores, entry.getKey(), entry.getValue(), PREFIX_MATCH_BOOST, documentCount);
+                }
+
+                termScores.forEach((productId, score) -> {
+                    Hit hit = hits.computeIfAbsent(productId,
+                            id -> new Hit(id, documents.get(id).createdAt));
+                    hit.score += score;
+                    hit.matchedTerms++;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return topHits(hits.values(), offset, limit);
+    }
+
+    private void scoreTerm(Map<Long, Float> termScores, String term, Map<Long, Float> termPostings,
+                           float boost, int documentCount) {
+        if (termPostings == null || termPostings.isEmpty()) {
+            return;
+        }
+        float idf = (float) Math.log(1.0 + (double) documentCount / termPostings.size());
+        termPostings.forEach((productId, weight) ->
+                termScores.merge(productId, boost * idf * weight, Math::max));
+    }
+
+    private SearchHits topHits(Iterable<Hit> hits, int offset, int limit) {
+        Comparator<Hit> ranking = Comparator.comparingInt((Hit h) -> h.matchedTerms)
+                .thenComparingDouble(h -> h.score)
+                .thenComparingLong(h -> h.createdAt)
+                .thenComparingLong(h -> -h.productId);
+
+        // Saturates instead of overflowing; the queue never grows past the number of hits anyway
+        int window = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        PriorityQueue<Hit> top = new PriorityQueue<>(ranking);
+        int total = 0;
+        for (Hit hit : hits) {
+            total++;
+            top.offer(hit);
+            if (top.size() > window) {
+                top.poll();
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(top);
+        ranked.sort(ranking.reversed());
+
+        List<Long> productIds = new ArrayList<>(Math.max(ranked.size() - offset, 0));
+        for (int i = offset; i < ranked.size(); i++) {
+            productIds.add(ranked.get(i).productId);
+        }
+        return new SearchHits(productIds, total);
+    }
+
+    private void removeInternal(Long productId) {
+        Document previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addField(Map<String, Float> termWeights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            termWeights.merge(term, weight, Float::sum);
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Document {
+        private final Set<String> terms;
+        private final long createdAt;
+
+        private Document(Set<String> terms, long createdAt) {
+            this.terms = Set.copyOf(terms);
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Hit {
+        private final Long productId;
+        private final long createdAt;
+        private float score;
+        private int matchedTerms;
+
+        private Hit(Long productId, long createdAt) {
+            this.productId = productId;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.ecommerce.search;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Service
+@Slf4j
+public class ProductSearchService {
+
+    private static final int INDEX_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex index;
+    private volatile boolean ready = false;
+
+    public ProductSearchService(ProductRepository productRepository,
+                                @Value("${app.search.max-prefix-expansions:50}") int maxPrefixExpansions) {
+        this.productRepository = productRepository;
+        this.index = new ProductSearchIndex(maxPrefixExpansions);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+        index.clear();
+
+        List<Long> productIds = productRepository.findActiveProductIds();
+        for (int from = 0; from < productIds.size(); from += INDEX_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + INDEX_BATCH_SIZE, productIds.size()));
+            productRepository.findAllByIdWithTags(batch).forEach(index::index);
+        }
+
+        ready = true;
+        log.info("Built product search index with {} products in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    // Filtered before the listener's transaction starts, so checkouts don't each take a second connection
+    @TransactionalEventListener(fallbackExecution = true, condition = "!#event.stockOnly")
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        List<Product> products = productRepository.findAllByIdWithTags(List.of(event.getProductId()));
+        if (products.isEmpty() || products.get(0).getStatus() != Product.ProductStatus.ACTIVE) {
+            index.remove(event.getProductId());
+        } else {
+            index.index(products.get(0));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        productRepository.findAllByIdWithTags(event.getProductIds())
+                .stream()
+                .filter(product -> product.getStatus() == Product.ProductStatus.ACTIVE)
+                .forEach(index::index);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SearchHits search(String keyword, int page, int size) {
+        return index.search(keyword, (int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+    }
+}
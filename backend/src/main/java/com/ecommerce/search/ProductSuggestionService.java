@@ -0,0 +1,109 @@
+package com.ecommerce.search;
+
+import com.ecommerce.entity.Product;
+import com.ecommerce.event.CatalogImportedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class ProductSuggestionService {
+
+    private static final int INDEX_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final SuggestionIndex index;
+
+    public ProductSuggestionService(ProductRepository productRepository,
+                                    OrderItemRepository orderItemRepository,
+                                    @Value("${app.search.suggest.max-cached-prefix-length:4}") int maxCachedPrefixLength,
+                                    @Value("${app.search.suggest.max-results:10}") int maxResults) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.index = new SuggestionIndex(maxCachedPrefixLength, maxResults);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildIndex() {
+        long start = System.currentTimeMillis();
+
+        Map<Long, Long> unitsSold = orderItemRepository.getTotalQuantitySoldPerProduct()
+                .stream()
+                .collect(Collectors.toMap(OrderItemRepository.ProductSales::getProductId,
+                        OrderItemRepository.ProductSales::getQuantitySold));
+
+        List<Long> productIds = productRepository.findActiveProductIds();
+        for (int from = 0; from < productIds.size(); from += INDEX_BATCH_SIZE) {
+            List<Long> batch = productIds.subList(from, Math.min(from + INDEX_BATCH_SIZE, productIds.size()));
+            for (Product product : productRepository.findAllByIdWithTags(batch)) {
+                index.index(product.getId(), phrasesOf(product),
+                        popularity(product, unitsSold.getOrDefault(product.getId(), 0L)));
+            }
+        }
+
+        log.info("Built product suggestion index with {} phrases in {} ms",
+                index.size(), System.currentTimeMillis() - start);
+    }
+
+    // Filtered before the listener's transaction starts, so checkouts don't each take a second connection
+    @TransactionalEventListener(fallbackExecution = true, condition = "!#event.stockOnly")
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        List<Product> products = productRepository.findAllByIdWithTags(List.of(event.getProductId()));
+        if (products.isEmpty() || products.get(0).getStatus() != Product.ProductStatus.ACTIVE) {
+            index.remove(event.getProductId());
+            return;
+        }
+        Product product = products.get(0);
+        Integer unitsSold = orderItemRepository.getTotalQuantitySoldForProduct(product.getId());
+        index.index(product.getId(), phrasesOf(product), popularity(product, unitsSold != null ? unitsSold : 0L));
+    }
+
+    // Imported products have no sales yet, so reviews are their only popularity signal
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        for (Product product : productRepository.findAllByIdWithTags(event.getProductIds())) {
+            if (product.getStatus() == Product.ProductStatus.ACTIVE) {
+                index.index(product.getId(), phrasesOf(product), popularity(product, 0L));
+            }
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        return index.suggest(prefix, limit);
+    }
+
+    private List<String> phrasesOf(Product product) {
+        List<String> phrases = new ArrayList<>();
+        phrases.add(product.getName());
+        if (product.getBrand() != null) {
+            phrases.add(product.getBrand());
+        }
+        if (product.getTags() != null) {
+            phrases.addAll(product.getTags());
+        }
+        return phrases;
+    }
+
+    private long popularity(Product product, long unitsSold) {
+        int reviews = product.getReviewCount() != null ? product.getReviewCount() : 0;
+        return unitsSold + reviews;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ecommerce.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class SearchHits {
+
+    // Product ids of the requested page, best match first
+    private final List<Long> productIds;
+    private final long totalHits;
+}
@@ -0,0 +1,269 @@
+package com.ecommerce.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Prefix index of completion phrases (product names, brands, tags) weighted by popularity.
+ *
+ * Phrases live in a sorted map, so any prefix maps to a contiguous key range. Short prefixes
+ * match huge ranges, so for prefixes up to {@code maxCachedPrefixLength} characters the best
+ * completions are kept precomputed - the trie nodes that would be expensive to walk. Longer
+ * prefixes only match a handful of phrases and are answered by scanning the range. Memory is
+ * therefore one entry per distinct phrase plus at most twice {@code cacheSize} references per
+ * cached prefix, independent of how many products share a phrase.
+ *
+ * Each cached list keeps up to {@code cacheSize} extra completions beyond the ones served. A
+ * phrase whose weight drops only leaves the list if it sinks to the bottom, and the range is
+ * rescanned only once so many have left that fewer than {@code cacheSize} remain, rather than
+ * on every write.
+ */
+public class SuggestionIndex {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Comparator<Completion> BY_RELEVANCE = Comparator
+            .comparingLong((Completion c) -> c.weight).reversed()
+            .thenComparingInt(c -> c.key.length())
+            .thenComparing(c -> c.key);
+
+    private final int maxCachedPrefixLength;
+    private final int cacheSize;
+    private final int windowSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Completion> completions = new TreeMap<>();
+    private final Map<String, CachedPrefix> topByPrefix = new HashMap<>();
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    public SuggestionIndex(int maxCachedPrefixLength, int cacheSize) {
+        this.maxCachedPrefixLength = maxCachedPrefixLength;
+        this.cacheSize = cacheSize;
+        this.windowSize = cacheSize * 2;
+    }
+
+    /**
+     * Replaces everything the product previously contributed. Each phrase is weighted by the
+     * summed popularity of the products carrying it, so a brand shared by many popular
+     * products outranks a single obscure product name.
+     */
+    public void index(Long productId, Collection<String> phrases, long popularity) {
+        Map<String, String> normalized = new LinkedHashMap<>();
+        for (String phrase : phrases) {
+            String key = normalize(phrase);
+            if (!key.isEmpty()) {
+                normalized.putIfAbsent(key, phrase.trim());
+            }
+        }
+        long weight = Math.max(popularity, 0) + 1;
+
+        lock.writeLock().lock();
+        try {
+            Contribution previous = contributions.get(productId);
+            if (previous != null && previous.weight == weight && previous.keys.equals(normalized.keySet())) {
+                return;
+            }
+            removeInternal(productId);
+            for (Map.Entry<String, String> entry : normalized.entrySet()) {
+                Completion completion = completions.computeIfAbsent(entry.getKey(),
+                        key -> new Completion(key, entry.getValue()));
+                completion.weight += weight;
+                onWeightIncreased(completion);
+            }
+            contributions.put(productId, new Contribution(normalized.keySet(), weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return completions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<String> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int n = Math.min(limit, cacheSize);
+
+        lock.readLock().lock();
+        try {
+            List<Completion> top;
+            if (key.length() <= maxCachedPrefixLength) {
+                CachedPrefix cached = topByPrefix.get(key);
+                top = cached != null ? cached.entries : Collections.emptyList();
+            } else {
+                top = scanRange(key, n);
+            }
+            return top.stream()
+                    .limit(n)
+                    .map(c -> c.text)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        Contribution previous = contributions.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String key : previous.keys) {
+            Completion completion = completions.get(key);
+            if (completion == null) {
+                continue;
+            }
+            completion.weight -= previous.weight;
+            if (completion.weight <= 0) {
+                completions.remove(key);
+            }
+            onWeightDecreased(completion);
+        }
+    }
+
+    private void onWeightIncreased(Completion completion) {
+        for (String prefix : cachedPrefixes(completion.key)) {
+            CachedPrefix cached = topByPrefix.computeIfAbsent(prefix, p -> new CachedPrefix(windowSize));
+            List<Completion> top = cached.entries;
+            if (!top.contains(completion)) {
+                // Phrases outside an incomplete list rank at most as high as its last entry
+                boolean belowWindow = !top.isEmpty() && BY_RELEVANCE.compare(completion, top.get(top.size() - 1)) > 0;
+                if (belowWindow && (!cached.complete || top.size() >= windowSize)) {
+                    cached.complete = false;
+                    continue;
+                }
+                top.add(completion);
+            }
+            top.sort(BY_RELEVANCE);
+            if (top.size() > windowSize) {
+                top.remove(top.size() - 1);
+                cached.complete = false;
+            }
+        }
+    }
+
+    private void onWeightDecreased(Completion completion) {
+        boolean removed = completion.weight <= 0;
+        for (String prefix : cachedPrefixes(completion.key)) {
+            CachedPrefix cached = topByPrefix.get(prefix);
+            if (cached == null || !cached.entries.contains(completion)) {
+                continue;
+            }
+            List<Completion> top = cached.entries;
+            top.sort(BY_RELEVANCE);
+            // At the bottom of an incomplete list it may now rank below a phrase outside it
+            boolean last = top.get(top.size() - 1) == completion;
+            if (removed || (last && !cached.complete)) {
+                top.remove(completion);
+            }
+            if (top.isEmpty() && cached.complete) {
+                topByPrefix.remove(prefix);
+            } else if (top.size() < cacheSize && !cached.complete) {
+                rebuild(prefix);
+            }
+        }
+    }
+
+    private void rebuild(String prefix) {
+        List<Completion> rebuilt = scanRange(prefix, windowSize + 1);
+        if (rebuilt.isEmpty()) {
+            topByPrefix.remove(prefix);
+            return;
+        }
+        CachedPrefix cached = new CachedPrefix(windowSize);
+        cached.complete = rebuilt.size() <= windowSize;
+        cached.entries.addAll(cached.complete ? rebuilt : rebuilt.subList(0, windowSize));
+        topByPrefix.put(prefix, cached);
+    }
+
+    private List<Completion> scanRange(String prefix, int limit) {
+        PriorityQueue<Completion> top = new PriorityQueue<>(BY_RELEVANCE.reversed());
+        for (Completion completion : completions.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            top.offer(completion);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Completion> result = new ArrayList<>(top);
+        result.sort(BY_RELEVANCE);
+        return result;
+    }
+
+    private List<String> cachedPrefixes(String key) {
+        int length = Math.min(key.length(), maxCachedPrefixLength);
+        List<String> prefixes = new ArrayList<>(length);
+        for (int i = 1; i <= length; i++) {
+            prefixes.add(key.substring(0, i));
+        }
+        return prefixes;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(text.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    private static final class Completion {
+        private final String key;
+        private final String text;
+        private long weight;
+
+        private Completion(String key, String text) {
+            this.key = key;
+            this.text = text;
+        }
+    }
+
+    private static final class CachedPrefix {
+        private final List<Completion> entries;
+        // Whether every phrase with this prefix is in the list
+        private boolean complete = true;
+
+        private CachedPrefix(int windowSize) {
+            this.entries = new ArrayList<>(windowSize + 1);
+        }
+    }
+
+    private static final class Contribution {
+        private final Set<String> keys;
+        private final long weight;
+
+        private Contribution(Set<String> keys, long weight) {
+            this.keys = new HashSet<>(keys);
+            this.weight = weight;
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package com.ecommerce.service;
 
+import com.ecommerce.cache.CategoryProductCounts;
+import com.ecommerce.cache.CategoryTreeCache;
+import com.ecommerce.cache.SerializedCatalogCache;
+import com.ecommerce.cache.SerializedResponse;
+import com.ecommerce.catalog.Slugs;
 import com.ecommerce.dto.response.CategoryResponse;
 import com.ecommerce.entity.Category;
+import com.ecommerce.event.CategoryChangedEvent;
 import com.ecommerce.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -19,48 +28,46 @@ import java.util.stream.Collectors;
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+    private final CategoryProductCounts categoryProductCounts;
+    private final SerializedCatalogCache serializedCatalogCache;
+    private final ApplicationEventPublisher eventPublisher;
     
-    @Transactional(readOnly = true)
+    // Read methods are served from the in-memory category tree and don't need a transaction
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findByIsActiveTrueOrderBySortOrder()
-                .stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        return withProductCounts(categoryTreeCache.get().getAll());
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SerializedResponse getSerializedCategories() {
+        return serializedCatalogCache.getAllCategories(this::getAllCategories);
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<CategoryResponse> getTopLevelCategories() {
-        return categoryRepository.findTopLevelCategories()
-                .stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        return withProductCounts(categoryTreeCache.get().getTopLevel());
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<CategoryResponse> getCategoryById(Long id) {
-        return categoryRepository.findById(id)
-                .filter(Category::isActive)
-                .map(CategoryResponse::fromEntity);
+        return categoryTreeCache.get().findById(id).map(this::withProductCount);
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<CategoryResponse> getCategoryBySlug(String slug) {
-        return categoryRepository.findBySlug(slug)
-                .filter(Category::isActive)
-                .map(CategoryResponse::fromEntity);
+        return categoryTreeCache.get().findBySlug(slug).map(this::withProductCount);
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<CategoryResponse> getSubCategories(Long parentId) {
-        return categoryRepository.findByParentIdAndIsActiveTrue(parentId)
-                .stream()
-                .map(CategoryResponse::fromEntity)
-                .collect(Collectors.toList());
+        return withProductCounts(categoryTreeCache.get().getChildren(parentId));
     }
     
-    @Transactional(readOnly = true)
+    // Includes the active products of all subcategories
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long getProductCount(Long categoryId) {
-        return categoryRepository.countProductsInCategory(categoryId);
+        return categoryProductCounts.getCount(categoryId);
     }
     
     // Admin methods
@@ -69,6 +76,7 @@ public class CategoryService {
         category.setSlug(generateSlug(category.getName()));
         
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
         log.info("Created category: {}", savedCategory.getName());
         return CategoryResponse.fromEntity(savedCategory);
     }
@@ -90,6 +98,7 @@ public class CategoryService {
         }
         
         Category savedCategory = categoryRepository.save(existingCategory);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
         log.info("Updated category: {}", savedCategory.getName());
         return CategoryResponse.fromEntity(savedCategory);
     }
@@ -100,14 +109,28 @@ public class CategoryService {
         
         category.setActive(false);
         categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
         log.info("Deleted category: {}", category.getName());
     }
     
+    private List<CategoryResponse> withProductCounts(List<CategoryResponse> categories) {
+        return categories.stream()
+                .map(this::withProductCount)
+                .collect(Collectors.toList());
+    }
+    
+    // The tree's responses are shared between requests, so counts go onto copies
+    private CategoryResponse withProductCount(CategoryResponse category) {
+        CategoryResponse copy = new CategoryResponse();
+        BeanUtils.copyProperties(category, copy);
+        copy.setProductCount(categoryProductCounts.getCount(category.getId()));
+        if (category.getChildren() != null) {
+            copy.setChildren(withProductCounts(category.getChildren()));
+        }
+        return copy;
+    }
+    
     private String generateSlug(String name) {
-        return name.toLowerCase()
-                .replaceAll("[^a-z0-9\\s-]", "")
-                .replaceAll("\\s+", "-")
-                .replaceAll("-+", "-")
-                .replaceAll("^-|-$", "");
+        return Slugs.slugify(name);
     }
 }
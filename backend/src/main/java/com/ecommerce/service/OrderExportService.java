@@ -0,0 +1,150 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.OrderExportRequest;
+import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.OrderItem;
+import com.ecommerce.repository.OrderItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams orders to an output stream as NDJSON (one order per line) or CSV (one row per order item).
+ * Orders are read through a forward-only cursor and handled in chunks: the items of a chunk are
+ * loaded with one IN query, the chunk is written and flushed, and the persistence context is
+ * cleared, so memory use does not grow with the number of orders exported.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderExportService {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "order_number,created_at,status,payment_status,payment_method," +
+            "subtotal,tax,shipping_cost,total_amount,product_id,product_sku,product_name,quantity,unit_price,total_price";
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void export(OrderExportRequest request, OutputStream target) throws IOException {
+        long start = System.currentTimeMillis();
+        LocalDateTime from = request.getFrom() != null ? request.getFrom().atStartOfDay() : null;
+        LocalDateTime to = request.getTo() != null ? request.getTo().plusDays(1).atStartOfDay() : null;
+
+        OutputStream out = request.isGzip()
+                ? new GZIPOutputStream(target, BUFFER_SIZE)
+                : new BufferedOutputStream(target, BUFFER_SIZE);
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (request.getFormat() == OrderExportRequest.Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long exported = 0;
+        try (Stream<Order> orders = orderRepository.streamForExport(request.getStatus(), from, to)) {
+            Iterator<Order> iterator = orders.iterator();
+            List<Order> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == CHUNK_SIZE || !iterator.hasNext()) {
+                    writeChunk(chunk, request.getFormat(), writer);
+                    exported += chunk.size();
+                    chunk.clear();
+                    entityManager.clear();
+                }
+            }
+        }
+        writer.flush();
+        if (out instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+        out.flush();
+        log.info("Exported {} orders as {} in {} ms", exported, request.getFormat(), System.currentTimeMillis() - start);
+    }
+
+    private void writeChunk(List<Order> orders, OrderExportRequest.Format format, Writer writer) throws IOException {
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Long, List<OrderItem>> itemsByOrderId = orderItemRepository.findByOrderIdIn(orderIds)
+                .stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
+
+        for (Order order : orders) {
+            List<OrderItem> items = itemsByOrderId.getOrDefault(order.getId(), List.of());
+            if (format == OrderExportRequest.Format.CSV) {
+                writeCsv(order, items, writer);
+            } else {
+                writer.write(objectMapper.writeValueAsString(OrderResponse.fromEntity(order, items)));
+                writer.write('\n');
+            }
+        }
+        // Push each chunk to the client rather than buffering the whole export
+        writer.flush();
+    }
+
+    private void writeCsv(Order order, List<OrderItem> items, Writer writer) throws IOException {
+        String orderColumns = String.join(",",
+                csv(order.getOrderNumber()),
+                csv(order.getCreatedAt()),
+                csv(order.getStatus()),
+                csv(order.getPaymentStatus()),
+                csv(order.getPaymentMethod()),
+                csv(order.getSubtotal()),
+                csv(order.getTax()),
+                csv(order.getShippingCost()),
+                csv(order.getTotalAmount()));
+
+        if (items.isEmpty()) {
+            writer.write(orderColumns);
+            writer.write(",,,,,,\n");
+            return;
+        }
+        for (OrderItem item : items) {
+            writer.write(orderColumns);
+            writer.write(',');
+            writer.write(String.join(",",
+                    csv(item.getProduct().getId()),
+                    csv(item.getProductSku()),
+                    csv(item.getProductName()),
+                    csv(item.getQuantity()),
+                    csv(item.getUnitPrice()),
+                    csv(item.getTotalPrice())));
+            writer.write('\n');
+        }
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+}
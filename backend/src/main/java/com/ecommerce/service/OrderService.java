@@ -1,14 +1,31 @@
 package com.ecommerce.service;
 
+import com.ecommerce.concurrency.RetryOnConflict;
 import com.ecommerce.dto.request.CreateOrderRequest;
+import com.ecommerce.dto.response.CursorPage;
 import com.ecommerce.dto.response.OrderResponse;
 import com.ecommerce.entity.*;
+import com.ecommerce.event.OrderConfirmedEvent;
+import com.ecommerce.event.OrderPlacedEvent;
+import com.ecommerce.identity.UserIdentity;
+import com.ecommerce.identity.UserIdentityCache;
+import com.ecommerce.inventory.InventoryService;
+import com.ecommerce.inventory.ReservationService;
+import com.ecommerce.inventory.StockDecrementResult;
+import com.ecommerce.inventory.StockLine;
+import com.ecommerce.outbox.OutboxEvents;
+import com.ecommerce.outbox.OutboxWriter;
+import com.ecommerce.pagination.KeysetCursor;
 import com.ecommerce.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +34,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -26,35 +44,52 @@ import java.util.stream.Collectors;
 @Transactional
 public class OrderService {
     
+    private static final Sort NEWEST_FIRST = Sort.by("createdAt").descending().and(Sort.by("id").descending());
+    private static final Set<String> CURSOR_PROPERTIES = Set.of("createdAt", "id");
+    
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final CartRepository cartRepository;
     private final UserRepository userRepository;
-    private final ProductService productService;
+    private final UserIdentityCache userIdentityCache;
     private final CartService cartService;
+    private final InventoryService inventoryService;
+    private final ReservationService reservationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxWriter outbox;
     
+    @RetryOnConflict
     public OrderResponse createOrder(String firebaseUid, CreateOrderRequest request) {
-        User user = userRepository.findByFirebaseUid(firebaseUid)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        // A write-behind cart has to reach the database before it is read below
+        cartService.flush(firebaseUid);
+        
+        UserIdentity user = userIdentityCache.require(firebaseUid);
         
-        Cart cart = cartRepository.findByUserIdWithItems(user.getId())
+        Cart cart = cartRepository.findByUserIdWithItems(user.getUserId())
                 .orElseThrow(() -> new RuntimeException("Cart not found or is empty"));
         
         if (cart.getItems() == null || cart.getItems().isEmpty()) {
             throw new RuntimeException("Cart is empty");
         }
         
-        // Validate all items are still available
-        for (CartItem cartItem : cart.getItems()) {
-            if (!productService.isProductAvailable(cartItem.getProduct().getId(), cartItem.getQuantity())) {
-                throw new RuntimeException("Product " + cartItem.getProduct().getName() + " is no longer available in requested quantity");
-            }
+        // Stock held for other shoppers' checkouts isn't for sale
+        List<StockLine> shortfall = reservationService.findShortfall(firebaseUid, cart.getItems());
+        if (!shortfall.isEmpty()) {
+            throw new RuntimeException("Insufficient stock for: " + StockLine.describe(shortfall, cart.getItems()));
+        }
+        
+        // Reserve stock for every line at once; throwing rolls back the lines that did succeed
+        StockDecrementResult stock = inventoryService.decrement(cart.getItems().stream()
+                .map(cartItem -> new StockLine(cartItem.getProduct().getId(), cartItem.getQuantity()))
+                .collect(Collectors.toList()));
+        if (!stock.isSuccessful()) {
+            throw new RuntimeException("Insufficient stock for: " + StockLine.describe(stock.getFailedLines(), cart.getItems()));
         }
         
         // Create order
         Order order = new Order();
         order.setOrderNumber(generateOrderNumber());
-        order.setUser(user);
+        order.setUser(userRepository.getReferenceById(user.getUserId()));
         order.setStatus(Order.OrderStatus.PENDING);
         order.setPaymentMethod(request.getPaymentMethod());
         order.setPaymentStatus(Order.PaymentStatus.PENDING);
@@ -102,17 +137,21 @@ public class OrderService {
         
         orderItemRepository.saveAll(orderItems);
         savedOrder.setItems(orderItems);
-        
-        // Update product stock
-        for (CartItem cartItem : cart.getItems()) {
-            productService.updateStock(cartItem.getProduct().getId(), cartItem.getQuantity());
-        }
+        // Pooled ids defer the inserts; flushing here batches them and sets the timestamps the response shows
+        orderRepository.flush();
         
         // Clear cart
         cartService.clearCart(firebaseUid);
+        reservationService.consumeHold(firebaseUid);
+        
+        // Payment, confirmation and notifications run in the order pipeline once this commits
+        eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId()));
+        
+        OrderResponse response = OrderResponse.fromEntity(savedOrder);
+        outbox.append(OutboxEvents.ORDER, savedOrder.getId(), OutboxEvents.ORDER_PLACED, response);
         
         log.info("Created order {} for user {}", savedOrder.getOrderNumber(), firebaseUid);
-        return OrderResponse.fromEntity(savedOrder);
+        return response;
     }
     
     @Transactional(readOnly = true)
@@ -134,6 +173,14 @@ public class OrderService {
                 .map(OrderResponse::fromEntity);
     }
     
+    // Keyset pagination: seeks past the cursor instead of skipping rows, and never counts
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> scrollUserOrders(String firebaseUid, String cursor, int size) {
+        Window<Order> window = orderRepository.findByUserFirebaseUid(firebaseUid,
+                KeysetCursor.decode(cursor, CURSOR_PROPERTIES), NEWEST_FIRST, Limit.of(size));
+        return CursorPage.of(window, window.map(OrderResponse::fromEntity).getContent());
+    }
+    
     @Transactional(readOnly = true)
     public List<OrderResponse> getAllOrders() {
         return orderRepository.findAll()
@@ -149,6 +196,14 @@ public class OrderService {
                 .map(OrderResponse::fromEntity);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> scrollOrdersByStatus(Order.OrderStatus status, String cursor, int size) {
+        Window<Order> window = orderRepository.findByStatus(status,
+                KeysetCursor.decode(cursor, CURSOR_PROPERTIES), NEWEST_FIRST, Limit.of(size));
+        return CursorPage.of(window, window.map(OrderResponse::fromEntity).getContent());
+    }
+    
+    @RetryOnConflict
     public OrderResponse updateOrderStatus(Long orderId, Order.OrderStatus status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -173,12 +228,19 @@ public class OrderService {
                 break;
         }
         
-        Order updatedOrder = orderRepository.save(order);
+        // Flushed so the response and the outbox event carry the new updatedAt
+        Order updatedOrder = orderRepository.saveAndFlush(order);
+        if (status == Order.OrderStatus.CONFIRMED && oldStatus != Order.OrderStatus.CONFIRMED) {
+            publishConfirmed(updatedOrder);
+        }
+        OrderResponse response = OrderResponse.fromEntity(updatedOrder);
+        outbox.append(OutboxEvents.ORDER, orderId, OutboxEvents.ORDER_STATUS_CHANGED, response);
         log.info("Updated order {} status from {} to {}", orderId, oldStatus, status);
         
-        return OrderResponse.fromEntity(updatedOrder);
+        return response;
     }
     
+    @RetryOnConflict
     public OrderResponse updatePaymentStatus(Long orderId, Order.PaymentStatus paymentStatus) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -186,22 +248,61 @@ public class OrderService {
         order.setPaymentStatus(paymentStatus);
         
         // If payment is successful, confirm the order
-        if (paymentStatus == Order.PaymentStatus.PAID && order.getStatus() == Order.OrderStatus.PENDING) {
+        boolean confirmed = paymentStatus == Order.PaymentStatus.PAID && order.getStatus() == Order.OrderStatus.PENDING;
+        if (confirmed) {
             order.setStatus(Order.OrderStatus.CONFIRMED);
         }
         
-        Order updatedOrder = orderRepository.save(order);
+        Order updatedOrder = orderRepository.saveAndFlush(order);
+        if (confirmed) {
+            publishConfirmed(updatedOrder);
+        }
+        OrderResponse response = OrderResponse.fromEntity(updatedOrder);
+        outbox.append(OutboxEvents.ORDER, orderId, OutboxEvents.ORDER_PAYMENT_STATUS_CHANGED, response);
         log.info("Updated order {} payment status to {}", orderId, paymentStatus);
         
-        return OrderResponse.fromEntity(updatedOrder);
+        return response;
     }
     
+    @RetryOnConflict
+    public void recordPaymentIntent(Long orderId, String paymentIntentId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        
+        order.setPaymentIntentId(paymentIntentId);
+        orderRepository.save(order);
+        log.info("Recorded payment intent {} for order {}", paymentIntentId, orderId);
+    }
+    
+    /**
+     * Marks a pending order paid and confirmed. Orders that were cancelled, failed or settled in
+     * the meantime are left alone.
+     */
+    @RetryOnConflict
+    public boolean confirmPayment(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        
+        if (order.getStatus() != Order.OrderStatus.PENDING || order.getPaymentStatus() != Order.PaymentStatus.PENDING) {
+            return false;
+        }
+        order.setPaymentStatus(Order.PaymentStatus.PAID);
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+        orderRepository.saveAndFlush(order);
+        publishConfirmed(order);
+        outbox.append(OutboxEvents.ORDER, orderId, OutboxEvents.ORDER_PAYMENT_STATUS_CHANGED, OrderResponse.fromEntity(order));
+        
+        log.info("Confirmed payment for order {}", order.getOrderNumber());
+        return true;
+    }
+    
+    @RetryOnConflict
     public void cancelOrder(String firebaseUid, Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
         
-        // Verify order belongs to user
-        if (!order.getUser().getFirebaseUid().equals(firebaseUid)) {
+        // Verify order belongs to user, comparing ids so the user isn't loaded
+        if (!order.getUser().getId().equals(userIdentityCache.require(firebaseUid).getUserId())) {
             throw new RuntimeException("Order does not belong to user");
         }
         
@@ -212,18 +313,25 @@ public class OrderService {
         }
         
         order.setStatus(Order.OrderStatus.CANCELLED);
-        orderRepository.save(order);
+        orderRepository.saveAndFlush(order);
         
         // Restore stock
         restoreStockForOrder(order);
+        outbox.append(OutboxEvents.ORDER, orderId, OutboxEvents.ORDER_CANCELLED, OrderResponse.fromEntity(order));
         
         log.info("Cancelled order {} for user {}", orderId, firebaseUid);
     }
     
+    private void publishConfirmed(Order order) {
+        eventPublisher.publishEvent(new OrderConfirmedEvent(order.getId(), order.getOrderNumber(),
+                order.getUser().getFirebaseUid(), order.getTotalAmount(),
+                order.getItems().stream().mapToInt(OrderItem::getQuantity).sum()));
+    }
+    
     private void restoreStockForOrder(Order order) {
-        for (OrderItem orderItem : order.getItems()) {
-            productService.restoreStock(orderItem.getProduct().getId(), orderItem.getQuantity());
-        }
+        inventoryService.increment(order.getItems().stream()
+                .map(orderItem -> new StockLine(orderItem.getProduct().getId(), orderItem.getQuantity()))
+                .collect(Collectors.toList()));
     }
     
     private String generateOrderNumber() {
@@ -4,6 +4,7 @@ import com.ecommerce.entity.Order;
 import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +32,10 @@ public class PaymentService {
         }
     }
     
+    public boolean isConfigured() {
+        return stripeSecretKey != null && !stripeSecretKey.isEmpty();
+    }
+    
     public PaymentIntent createPaymentIntent(Order order) throws StripeException {
         if (stripeSecretKey == null || stripeSecretKey.isEmpty()) {
             // Return a mock payment intent for demo purposes
@@ -50,7 +55,11 @@ public class PaymentService {
                 .setDescription("Order #" + order.getOrderNumber())
                 .build();
         
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
+        // Keyed on the order, so initiating payment again after a failure returns the same intent
+        RequestOptions options = RequestOptions.builder()
+                .setIdempotencyKey("order-" + order.getOrderNumber())
+                .build();
+        PaymentIntent paymentIntent = PaymentIntent.create(params, options);
         log.info("Created payment intent for order {}: {}", order.getOrderNumber(), paymentIntent.getId());
         
         return paymentIntent;
@@ -0,0 +1,58 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Maps listing pages to {@link ProductResponse}s without walking the lazy collections of each
+ * product. Callers fetch the page with its categories already joined; the image URLs and tags
+ * of the whole page are then loaded with one IN query each, so a page costs the same number
+ * of queries whatever its size.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductListingAssembler {
+
+    private final ProductRepository productRepository;
+
+    public Page<ProductResponse> toResponses(Page<Product> page) {
+        return new PageImpl<>(toResponses(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    public List<ProductResponse> toResponses(List<Product> products) {
+        if (products.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> productIds = products.stream()
+                .map(Product::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<String>> imageUrls = group(productRepository.findImageUrlsByProductIds(productIds));
+        Map<Long, List<String>> tags = group(productRepository.findTagsByProductIds(productIds));
+
+        return products.stream()
+                .map(product -> ProductResponse.fromEntity(product,
+                        imageUrls.getOrDefault(product.getId(), new ArrayList<>()),
+                        tags.getOrDefault(product.getId(), new ArrayList<>())))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<Long, List<String>> group(List<ProductRepository.ProductAttribute> rows) {
+        Map<Long, List<String>> grouped = new HashMap<>();
+        for (ProductRepository.ProductAttribute row : rows) {
+            grouped.computeIfAbsent(row.getProductId(), id -> new ArrayList<>()).add(row.getAttribute());
+        }
+        return grouped;
+    }
+}
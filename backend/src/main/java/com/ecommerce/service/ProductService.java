@@ -1,20 +1,55 @@
 package com.ecommerce.service;
 
+import com.ecommerce.cache.HomepageFeeds;
+import com.ecommerce.cache.ProductCache;
+import com.ecommerce.cache.SerializedCatalogCache;
+import com.ecommerce.cache.SerializedResponse;
+import com.ecommerce.catalog.Slugs;
+import com.ecommerce.concurrency.RetryOnConflict;
+import com.ecommerce.dto.request.FacetedSearchRequest;
+import com.ecommerce.dto.response.AvailabilityResponse;
+import com.ecommerce.dto.response.CursorPage;
+import com.ecommerce.dto.response.FacetedSearchResponse;
 import com.ecommerce.dto.response.ProductResponse;
 import com.ecommerce.entity.Product;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.inventory.InventoryService;
+import com.ecommerce.inventory.LowStockMonitor;
+import com.ecommerce.inventory.ReservationLedger;
+import com.ecommerce.inventory.ShardedStockService;
+import com.ecommerce.inventory.StockDecrementResult;
+import com.ecommerce.inventory.StockLine;
+import com.ecommerce.pagination.KeysetCursor;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.search.FacetResult;
+import com.ecommerce.search.ProductFacetService;
+import com.ecommerce.search.ProductSearchService;
+import com.ecommerce.search.ProductSuggestionService;
+import com.ecommerce.search.SearchHits;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,7 +58,23 @@ import java.util.stream.Collectors;
 @Transactional
 public class ProductService {
     
+    // Sort keys on NOT NULL columns, as the keyset predicate cannot seek past nulls
+    private static final Set<String> CURSOR_SORT_PROPERTIES =
+            Set.of("createdAt", "updatedAt", "name", "price", "averageRating", "reviewCount");
+    
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final ProductSearchService productSearchService;
+    private final ProductFacetService productFacetService;
+    private final ProductSuggestionService productSuggestionService;
+    private final ProductListingAssembler listingAssembler;
+    private final HomepageFeeds homepageFeeds;
+    private final InventoryService inventoryService;
+    private final ReservationLedger reservationLedger;
+    private final ShardedStockService shardedStockService;
+    private final LowStockMonitor lowStockMonitor;
+    private final SerializedCatalogCache serializedCatalogCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(int page, int size, String sortBy, String sortDir) {
@@ -31,59 +82,105 @@ public class ProductService {
                 Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         
         Pageable pageable = PageRequest.of(page, size, sort);
-        return productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable)
-                .map(ProductResponse::fromEntity);
+        return listingAssembler.toResponses(productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable));
     }
     
+    // Keyset alternative to getAllProducts: the cursor carries (sortBy, id) of the last product returned
     @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> scrollProducts(String cursor, int size, String sortBy, String sortDir) {
+        if (!CURSOR_SORT_PROPERTIES.contains(sortBy)) {
+            throw new RuntimeException("Cursor pagination does not support sorting by " + sortBy);
+        }
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortBy).and(Sort.by(direction, "id"));
+        
+        Window<Product> window = productRepository.findByStatus(Product.ProductStatus.ACTIVE,
+                KeysetCursor.decode(cursor, Set.of(sortBy, "id")), sort, Limit.of(size));
+        return CursorPage.of(window, listingAssembler.toResponses(window.getContent()));
+    }
+    
+    // Served from the product cache, which opens its own transaction only on a miss
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<ProductResponse> getProductById(Long id) {
-        return productRepository.findById(id)
-                .filter(product -> product.getStatus() == Product.ProductStatus.ACTIVE)
-                .map(ProductResponse::fromEntity);
+        return productCache.getById(id);
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<ProductResponse> getProductBySlug(String slug) {
-        return productRepository.findBySlug(slug)
-                .filter(product -> product.getStatus() == Product.ProductStatus.ACTIVE)
-                .map(ProductResponse::fromEntity);
+        return productCache.getBySlug(slug);
+    }
+    
+    // The JSON bytes and ETag of a product, serialized once and kept until the product changes
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<SerializedResponse> getSerializedProductById(Long id) {
+        SerializedResponse cached = serializedCatalogCache.getProductById(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return productCache.getById(id).map(serializedCatalogCache::putProduct);
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<SerializedResponse> getSerializedProductBySlug(String slug) {
+        return productCache.getBySlug(slug).map(serializedCatalogCache::putProduct);
     }
     
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByCategory(Long categoryId, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.findByCategoryIdAndStatus(categoryId, Product.ProductStatus.ACTIVE, pageable)
-                .map(ProductResponse::fromEntity);
+        return listingAssembler.toResponses(
+                productRepository.findByCategoryIdAndStatus(categoryId, Product.ProductStatus.ACTIVE, pageable));
     }
     
-    @Transactional(readOnly = true)
+    // The home page feeds are served from memory; the queries only run for limits beyond the feed size
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ProductResponse> getFeaturedProducts(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return productRepository.findFeaturedProducts(pageable)
-                .stream()
-                .map(ProductResponse::fromEntity)
-                .collect(Collectors.toList());
+        return homepageFeeds.getFeatured(limit).orElseGet(() -> listingAssembler.toResponses(
+                productRepository.findFeaturedProducts(PageRequest.of(0, limit, Sort.by("createdAt").descending()))));
     }
     
     @Transactional(readOnly = true)
     public Page<ProductResponse> searchProducts(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.searchProducts(keyword, pageable)
-                .map(ProductResponse::fromEntity);
+        // Fall back to the LIKE query only until the in-memory index has been built
+        if (!productSearchService.isReady()) {
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            return listingAssembler.toResponses(productRepository.searchProducts(keyword, pageable));
+        }
+        
+        SearchHits hits = productSearchService.search(keyword, page, size);
+        return new PageImpl<>(findResponsesInOrder(hits.getProductIds()), PageRequest.of(page, size), hits.getTotalHits());
+    }
+    
+    // Answered entirely from memory, so don't hold a connection for it
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<String> getSuggestions(String prefix, int limit) {
+        return productSuggestionService.suggest(prefix, limit);
+    }
+    
+    @Transactional(readOnly = true)
+    public FacetedSearchResponse facetedSearch(FacetedSearchRequest request) {
+        FacetResult result = productFacetService.search(request);
+        
+        FacetedSearchResponse response = new FacetedSearchResponse();
+        response.setProducts(new PageImpl<>(findResponsesInOrder(result.getProductIds()),
+                PageRequest.of(request.getPage(), request.getSize()), result.getTotalHits()));
+        response.setBrands(result.getBrandCounts());
+        response.setCategories(result.getCategoryCounts());
+        response.setPriceRanges(result.getPriceRangeCounts());
+        response.setRatings(result.getRatingCounts());
+        return response;
     }
     
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("price").ascending());
-        return productRepository.findByPriceRange(minPrice, maxPrice, pageable)
-                .map(ProductResponse::fromEntity);
+        return listingAssembler.toResponses(productRepository.findByPriceRange(minPrice, maxPrice, pageable));
     }
     
     @Transactional(readOnly = true)
     public Page<ProductResponse> getProductsByBrand(String brand, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.findByBrand(brand, pageable)
-                .map(ProductResponse::fromEntity);
+        return listingAssembler.toResponses(productRepository.findByBrand(brand, pageable));
     }
     
     @Transactional(readOnly = true)
@@ -91,72 +188,102 @@ public class ProductService {
         return productRepository.findAllBrands();
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ProductResponse> getLatestProducts(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return productRepository.findLatestProducts(pageable)
-                .stream()
-                .map(ProductResponse::fromEntity)
-                .collect(Collectors.toList());
+        return homepageFeeds.getLatest(limit).orElseGet(() -> listingAssembler.toResponses(
+                productRepository.findLatestProducts(PageRequest.of(0, limit))));
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ProductResponse> getTopRatedProducts(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        return productRepository.findTopRatedProducts(pageable)
-                .stream()
-                .map(ProductResponse::fromEntity)
-                .collect(Collectors.toList());
+        return homepageFeeds.getTopRated(limit).orElseGet(() -> listingAssembler.toResponses(
+                productRepository.findTopRatedProducts(PageRequest.of(0, limit))));
     }
     
-    @Transactional(readOnly = true)
+    // Answered from the reservation ledger, net of checkout holds, once it is loaded
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean isProductAvailable(Long productId, int quantity) {
+        OptionalInt availableToPromise = reservationLedger.getAvailableToPromise(productId);
+        if (availableToPromise.isPresent()) {
+            return availableToPromise.getAsInt() >= quantity;
+        }
         return productRepository.findById(productId)
-                .map(product -> product.getStatus() == Product.ProductStatus.ACTIVE && 
-                               product.getStockQuantity() >= quantity)
+                .map(product -> hasStock(product, quantity))
                 .orElse(false);
     }
     
-    public void updateStock(Long productId, int quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
+    // For callers that already hold the product, so the fallback doesn't read it again
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isProductAvailable(Product product, int quantity) {
+        OptionalInt availableToPromise = reservationLedger.getAvailableToPromise(product.getId());
+        if (availableToPromise.isPresent()) {
+            return availableToPromise.getAsInt() >= quantity;
+        }
+        return hasStock(product, quantity);
+    }
+    
+    /**
+     * Checks many products at once, e.g. a whole cart before checkout. Quantities come from the
+     * reservation ledger; products it can't answer for are read together in one query, so the
+     * cost doesn't grow with the number of lines.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public AvailabilityResponse checkAvailability(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            if (productId == null) {
+                throw new RuntimeException("Product ID is required");
+            }
+            if (quantity == null) {
+                throw new RuntimeException("Quantity is required");
+            }
+            if (quantity < 1) {
+                throw new RuntimeException("Quantity must be at least 1");
+            }
+        });
         
-        if (product.getStockQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock");
+        Map<Long, Integer> available = new HashMap<>(reservationLedger.getAvailableToPromise(quantities.keySet()));
+        List<Long> unknown = quantities.keySet().stream()
+                .filter(productId -> !available.containsKey(productId))
+                .collect(Collectors.toList());
+        if (!unknown.isEmpty()) {
+            productRepository.findStockLevelsByIdIn(unknown).forEach(level -> available.put(level.getProductId(),
+                    level.getStatus() == Product.ProductStatus.ACTIVE ? level.getStockQuantity() : 0));
         }
         
-        product.setStockQuantity(product.getStockQuantity() - quantity);
+        List<AvailabilityResponse.Line> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            AvailabilityResponse.Line line = new AvailabilityResponse.Line();
+            line.setProductId(productId);
+            line.setRequestedQuantity(quantity);
+            line.setAvailableQuantity(available.getOrDefault(productId, 0));
+            line.setAvailable(line.getAvailableQuantity() >= quantity);
+            lines.add(line);
+        });
         
-        // Update status if out of stock
-        if (product.getStockQuantity() == 0) {
-            product.setStatus(Product.ProductStatus.OUT_OF_STOCK);
+        AvailabilityResponse response = new AvailabilityResponse();
+        response.setLines(lines);
+        response.setAvailable(lines.stream().allMatch(AvailabilityResponse.Line::isAvailable));
+        return response;
+    }
+    
+    public void updateStock(Long productId, int quantity) {
+        StockDecrementResult result = inventoryService.decrement(List.of(new StockLine(productId, quantity)));
+        if (!result.isSuccessful()) {
+            throw new RuntimeException("Insufficient stock");
         }
-        
-        productRepository.save(product);
         log.info("Updated stock for product {}: -{} units", productId, quantity);
     }
     
     public void restoreStock(Long productId, int quantity) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-        
-        product.setStockQuantity(product.getStockQuantity() + quantity);
-        
-        // Restore status if previously out of stock
-        if (product.getStatus() == Product.ProductStatus.OUT_OF_STOCK && product.getStockQuantity() > 0) {
-            product.setStatus(Product.ProductStatus.ACTIVE);
-        }
-        
-        productRepository.save(product);
+        inventoryService.increment(List.of(new StockLine(productId, quantity)));
         log.info("Restored stock for product {}: +{} units", productId, quantity);
     }
     
+    // Lowest stock first, from the monitor's live set rather than a scan of the catalog
     @Transactional(readOnly = true)
-    public List<ProductResponse> getLowStockProducts(int threshold) {
-        return productRepository.findLowStockProducts(threshold)
-                .stream()
-                .map(ProductResponse::fromEntity)
-                .collect(Collectors.toList());
+    public Page<ProductResponse> getLowStockProducts(int page, int size) {
+        Page<Long> ids = lowStockMonitor.getLowStockProductIds(page, size);
+        return new PageImpl<>(findResponsesInOrder(ids.getContent()), ids.getPageable(), ids.getTotalElements());
     }
     
     @Transactional(readOnly = true)
@@ -169,14 +296,27 @@ public class ProductService {
         // Generate slug from name
         product.setSlug(generateSlug(product.getName()));
         
-        Product savedProduct = productRepository.save(product);
+        // Ratings come from reviews; a request body may still carry them as null
+        if (product.getAverageRating() == null) {
+            product.setAverageRating(0.0);
+        }
+        if (product.getReviewCount() == null) {
+            product.setReviewCount(0);
+        }
+        
+        // Flushed so the response carries the timestamps set on insert
+        Product savedProduct = productRepository.saveAndFlush(product);
+        publishChange(savedProduct, ProductChangedEvent.ChangeType.CREATED, null, false);
         log.info("Created product: {}", savedProduct.getName());
         return ProductResponse.fromEntity(savedProduct);
     }
     
+    @RetryOnConflict
     public ProductResponse updateProduct(Long id, Product updatedProduct) {
         Product existingProduct = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
+        Long previousCategoryId = categoryIdOf(existingProduct);
+        boolean wasActive = isActive(existingProduct);
         
         existingProduct.setName(updatedProduct.getName());
         existingProduct.setDescription(updatedProduct.getDescription());
@@ -196,25 +336,61 @@ public class ProductService {
             existingProduct.setSlug(generateSlug(updatedProduct.getName()));
         }
         
+        shardedStockService.redistribute(id, updatedProduct.getStockQuantity());
+        
         Product savedProduct = productRepository.save(existingProduct);
+        publishChange(savedProduct, ProductChangedEvent.ChangeType.UPDATED, previousCategoryId, wasActive);
         log.info("Updated product: {}", savedProduct.getName());
         return ProductResponse.fromEntity(savedProduct);
     }
     
+    @RetryOnConflict
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
+        boolean wasActive = isActive(product);
         
         product.setStatus(Product.ProductStatus.INACTIVE);
         productRepository.save(product);
+        publishChange(product, ProductChangedEvent.ChangeType.DELETED, categoryIdOf(product), wasActive);
         log.info("Deleted product: {}", product.getName());
     }
     
+    private void publishChange(Product product, ProductChangedEvent.ChangeType type,
+                               Long previousCategoryId, boolean wasActive) {
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), type,
+                previousCategoryId, wasActive, categoryIdOf(product), isActive(product), product.getStockQuantity()));
+    }
+    
+    private static Long categoryIdOf(Product product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
+    }
+    
+    private static boolean hasStock(Product product, int quantity) {
+        return isActive(product) && product.getStockQuantity() >= quantity;
+    }
+    
+    private static boolean isActive(Product product) {
+        return product.getStatus() == Product.ProductStatus.ACTIVE;
+    }
+    
+    // Loads the given products with their categories and maps them in the caller's (ranked) order
+    private List<ProductResponse> findResponsesInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Product> productsById = productRepository.findAllByIdWithCategory(productIds)
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        
+        List<Product> products = productIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return listingAssembler.toResponses(products);
+    }
+    
     private String generateSlug(String name) {
-        return name.toLowerCase()
-                .replaceAll("[^a-z0-9\\s-]", "")
-                .replaceAll("\\s+", "-")
-                .replaceAll("-+", "-")
-                .replaceAll("^-|-$", "");
+        return Slugs.slugify(name);
     }
 }
@@ -4,11 +4,14 @@ import com.ecommerce.dto.request.UserRegistrationRequest;
 import com.ecommerce.dto.response.UserResponse;
 import com.ecommerce.entity.Cart;
 import com.ecommerce.entity.User;
+import com.ecommerce.identity.UserIdentity;
+import com.ecommerce.identity.UserIdentityCache;
 import com.ecommerce.repository.CartRepository;
 import com.ecommerce.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
@@ -21,6 +24,7 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final CartRepository cartRepository;
+    private final UserIdentityCache userIdentityCache;
     
     public UserResponse registerUser(UserRegistrationRequest request) {
         // Check if user already exists
@@ -89,6 +93,7 @@ public class UserService {
         
         user.setActive(false);
         userRepository.save(user);
+        userIdentityCache.invalidate(user.getFirebaseUid());
         
         log.info("User deactivated: {}", user.getEmail());
     }
@@ -99,21 +104,34 @@ public class UserService {
         
         user.setActive(true);
         userRepository.save(user);
+        userIdentityCache.invalidate(user.getFirebaseUid());
         
         log.info("User activated: {}", user.getEmail());
     }
     
-    @Transactional(readOnly = true)
+    public UserResponse changeRole(Long id, User.UserRole role) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        user.setRole(role);
+        User updatedUser = userRepository.save(user);
+        userIdentityCache.invalidate(user.getFirebaseUid());
+        
+        log.info("User {} role changed to {}", user.getEmail(), role);
+        return UserResponse.fromEntity(updatedUser);
+    }
+    
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isUserActive(String firebaseUid) {
-        return userRepository.findByFirebaseUid(firebaseUid)
-                .map(User::isActive)
+        return userIdentityCache.find(firebaseUid)
+                .map(UserIdentity::isActive)
                 .orElse(false);
     }
     
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isAdmin(String firebaseUid) {
-        return userRepository.findByFirebaseUid(firebaseUid)
-                .map(user -> user.getRole() == User.UserRole.ADMIN)
+        return userIdentityCache.find(firebaseUid)
+                .map(UserIdentity::isAdmin)
                 .orElse(false);
     }
     
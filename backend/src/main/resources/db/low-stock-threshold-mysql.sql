@@ -0,0 +1,6 @@
+-- Adds the per-product and per-category low-stock thresholds. Profiles that let Hibernate update
+-- the schema add them on their own; where the schema is only validated (prod), run this before
+-- deploying. NULL means the threshold is inherited.
+
+ALTER TABLE products ADD COLUMN low_stock_threshold INT NULL;
+ALTER TABLE categories ADD COLUMN low_stock_threshold INT NULL;
@@ -0,0 +1,14 @@
+-- Creates the outbox table. Profiles that let Hibernate update the schema create it on their
+-- own; where the schema is only validated (prod), run this before deploying.
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(100) NOT NULL,
+    payload LONGTEXT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    published_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_outbox_events_unpublished (published_at, id)
+) ENGINE=InnoDB;
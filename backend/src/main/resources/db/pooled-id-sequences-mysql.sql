@@ -0,0 +1,18 @@
+-- Moves orders, order_items, cart_items and products from AUTO_INCREMENT ids to the pooled
+-- table-backed generator. Profiles that let Hibernate update the schema create the table on
+-- their own; where the schema is only validated (prod), run this first, with every instance
+-- stopped so nothing inserts through AUTO_INCREMENT afterwards.
+--
+-- Each row holds the highest id handed out for its table. Existing rows keep their ids; the
+-- sequences start after them, and IdBlockAllocator re-checks that on every startup.
+
+CREATE TABLE IF NOT EXISTS id_sequences (
+    sequence_name VARCHAR(255) NOT NULL,
+    last_used_id BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE=InnoDB;
+
+INSERT IGNORE INTO id_sequences (sequence_name, last_used_id) SELECT 'orders', COALESCE(MAX(id), 0) FROM orders;
+INSERT IGNORE INTO id_sequences (sequence_name, last_used_id) SELECT 'order_items', COALESCE(MAX(id), 0) FROM order_items;
+INSERT IGNORE INTO id_sequences (sequence_name, last_used_id) SELECT 'cart_items', COALESCE(MAX(id), 0) FROM cart_items;
+INSERT IGNORE INTO id_sequences (sequence_name, last_used_id) SELECT 'products', COALESCE(MAX(id), 0) FROM products;
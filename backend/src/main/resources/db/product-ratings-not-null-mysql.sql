@@ -0,0 +1,10 @@
+-- Makes products.average_rating and products.review_count NOT NULL, as keyset pagination sorts
+-- on them. Hibernate's schema update does not tighten existing columns, so run this on every
+-- existing database, including those of profiles that update the schema themselves.
+
+UPDATE products SET average_rating = 0 WHERE average_rating IS NULL;
+UPDATE products SET review_count = 0 WHERE review_count IS NULL;
+
+ALTER TABLE products
+    MODIFY average_rating DOUBLE NOT NULL DEFAULT 0,
+    MODIFY review_count INT NOT NULL DEFAULT 0;
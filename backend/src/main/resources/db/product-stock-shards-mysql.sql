@@ -0,0 +1,12 @@
+-- Creates the counter slots of sharded product stock. Profiles that let Hibernate update the
+-- schema create it on their own; where the schema is only validated (prod), run this before
+-- deploying.
+
+CREATE TABLE IF NOT EXISTS product_stock_shards (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    product_id BIGINT NOT NULL,
+    slot INT NOT NULL,
+    quantity INT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_product_stock_shards_slot UNIQUE (product_id, slot)
+) ENGINE=InnoDB;
@@ -0,0 +1,10 @@
+-- Records on each product whether its stock is sharded, so every instance reads the same answer.
+-- Profiles that let Hibernate update the schema add the column on their own; where the schema is
+-- only validated (prod), run this before deploying. NULL means the stock lives in the product row.
+
+ALTER TABLE products ADD COLUMN stock_slots INT NULL;
+
+UPDATE products p
+JOIN (SELECT product_id, COUNT(*) AS slots FROM product_stock_shards GROUP BY product_id) s
+    ON s.product_id = p.id
+SET p.stock_slots = s.slots;
@@ -0,0 +1,17 @@
+-- Creates the table the reservation ledger rebuilds its holds from after a restart. Profiles
+-- that let Hibernate update the schema create it on their own; where the schema is only
+-- validated (prod), run this before deploying.
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    hold_id VARCHAR(36) NOT NULL,
+    firebase_uid VARCHAR(255) NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    expires_at DATETIME(6) NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_stock_reservations_hold (hold_id),
+    INDEX idx_stock_reservations_user (firebase_uid),
+    INDEX idx_stock_reservations_expiry (expires_at)
+) ENGINE=InnoDB;
@@ -0,0 +1,8 @@
+-- Adds the optimistic locking version columns. Profiles that let Hibernate update the schema add
+-- them on their own; where the schema is only validated (prod), run this before deploying.
+-- Existing rows start at version 0.
+
+ALTER TABLE products ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE carts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE cart_items ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,75 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Slug lookups load through the id cache, so they see the same invalidations as lookups by id.
+ */
+@SpringBootTest
+class ProductCacheSlugTest {
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Category category;
+    private String suffix;
+
+    @BeforeEach
+    void createCategory() {
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+        category = new Category();
+        category.setName("Slug " + suffix);
+        category.setSlug("slug-" + suffix);
+        category = categoryRepository.save(category);
+    }
+
+    @Test
+    void slugLookupSharesTheIdEntry() {
+        ProductResponse created = productService.createProduct(product("Slug product " + suffix));
+
+        ProductResponse bySlug = productCache.getBySlug(created.getSlug()).orElseThrow();
+
+        assertThat(productCache.getById(created.getId())).containsSame(bySlug);
+    }
+
+    @Test
+    void updatedProductIsServedFreshBySlug() {
+        ProductResponse created = productService.createProduct(product("Slug product " + suffix));
+        productCache.getBySlug(created.getSlug()).orElseThrow();
+
+        Product changed = product("Slug product " + suffix);
+        changed.setPrice(BigDecimal.ONE);
+        productService.updateProduct(created.getId(), changed);
+
+        assertThat(productCache.getBySlug(created.getSlug()))
+                .hasValueSatisfying(product -> assertThat(product.getPrice()).isEqualByComparingTo(BigDecimal.ONE));
+    }
+
+    private Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(10);
+        product.setCategory(category);
+        return product;
+    }
+}
@@ -0,0 +1,136 @@
+package com.ecommerce.cart;
+
+import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.dto.response.CartResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Placing an order flushes the cart, reads it back and then clears it. Whatever the shopper
+ * adds in between, e.g. from a second tab, wasn't ordered and has to stay in the cart.
+ */
+// Its own database: this context recreates the schema, which must not reset ids under the other test contexts
+@SpringBootTest(properties = {
+        "app.cart.store=write-behind",
+        "spring.datasource.url=jdbc:h2:mem:write-behind;MODE=MySQL;DB_CLOSE_DELAY=-1"
+})
+class WriteBehindCartClearTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String firebaseUid;
+    private Product ordered;
+    private Product addedLater;
+
+    @BeforeEach
+    void fillCart() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Category category = new Category();
+        category.setName("Write-behind " + suffix);
+        category.setSlug("write-behind-" + suffix);
+        category = categoryRepository.save(category);
+        ordered = createProduct(category, "write-behind-" + suffix + "-a");
+        addedLater = createProduct(category, "write-behind-" + suffix + "-b");
+
+        User user = new User();
+        user.setFirebaseUid("write-behind-" + suffix);
+        user.setFirstName("Write");
+        user.setLastName("Behind");
+        user.setEmail("write-behind-" + suffix + "@example.com");
+        firebaseUid = userRepository.save(user).getFirebaseUid();
+
+        cartService.addToCart(firebaseUid, request(ordered, 1));
+    }
+
+    @Test
+    void changesMadeWhileTheOrderIsPlacedSurviveTheClear() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cartService.flush(firebaseUid);
+            cartService.addToCart(firebaseUid, request(addedLater, 1));
+            cartService.addToCart(firebaseUid, request(ordered, 2));
+            cartService.clearCart(firebaseUid);
+        });
+
+        CartResponse cart = cartService.getCart(firebaseUid).orElseThrow();
+        assertThat(quantities(cart)).isEqualTo(Map.of(ordered.getId(), 2, addedLater.getId(), 1));
+        assertThat(cart.getTotalItems()).isEqualTo(3);
+
+        cartService.flush(firebaseUid);
+        assertThat(storedItems()).isEqualTo(3);
+    }
+
+    @Test
+    void cartWithNothingNewIsEmptiedByTheClear() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            cartService.flush(firebaseUid);
+            cartService.clearCart(firebaseUid);
+        });
+
+        assertThat(cartService.getCart(firebaseUid).orElseThrow().getItems()).isEmpty();
+        assertThat(storedItems()).isZero();
+    }
+
+    private Product createProduct(Category category, String slug) {
+        Product product = new Product();
+        product.setName("Write-behind product " + slug);
+        product.setSlug(slug);
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(10);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+
+    private int storedItems() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(ci.quantity), 0) FROM cart_items ci " +
+                        "JOIN carts c ON c.id = ci.cart_id JOIN users u ON u.id = c.user_id WHERE u.firebase_uid = :uid",
+                Map.of("uid", firebaseUid), Integer.class);
+    }
+
+    private static Map<Long, Integer> quantities(CartResponse cart) {
+        return cart.getItems().stream()
+                .collect(Collectors.toMap(CartResponse.CartItemResponse::getProductId,
+                        CartResponse.CartItemResponse::getQuantity));
+    }
+
+    private static AddToCartRequest request(Product product, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(quantity);
+        return request;
+    }
+}
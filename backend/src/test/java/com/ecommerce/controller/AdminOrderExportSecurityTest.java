@@ -0,0 +1,43 @@
+package com.ecommerce.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The order export carries every shopper's name and addresses, so only admins may stream it.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AdminOrderExportSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shopperIsForbidden() throws Exception {
+        mockMvc.perform(get("/admin/orders/export"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void oldOrdersPathNoLongerExports() throws Exception {
+        mockMvc.perform(get("/orders/export"))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminCanExport() throws Exception {
+        mockMvc.perform(get("/admin/orders/export"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.search.ProductSearchService;
+import com.ecommerce.search.SearchHits;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Search paging comes straight from public query parameters, so out-of-range values are
+ * rejected before they reach the index, and the index itself never overflows its window.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ProductSearchBoundsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Test
+    void oversizedOrNegativePagingIsRejected() throws Exception {
+        mockMvc.perform(get("/products/search").param("keyword", "shirt").param("size", "2147483647"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search").param("keyword", "shirt").param("page", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/suggest").param("prefix", "sh").param("limit", "100000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/scroll").param("size", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void pageBeyondTheIntRangeFindsNothing() {
+        SearchHits hits = productSearchService.search("shirt", Integer.MAX_VALUE, 100);
+
+        assertThat(hits.getProductIds()).isEmpty();
+    }
+}
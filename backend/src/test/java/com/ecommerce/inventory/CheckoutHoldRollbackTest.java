@@ -0,0 +1,105 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CartService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A checkout hold lives in memory and in {@code stock_reservations}; if the rows never commit,
+ * the in-memory hold must not outlive them and keep other shoppers from the stock.
+ */
+@SpringBootTest
+class CheckoutHoldRollbackTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationLedger ledger;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String firebaseUid;
+    private Product product;
+
+    @BeforeEach
+    void fillCart() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Category category = new Category();
+        category.setName("Hold " + suffix);
+        category.setSlug("hold-" + suffix);
+        category = categoryRepository.save(category);
+
+        product = new Product();
+        product.setName("Hold product " + suffix);
+        product.setSlug("hold-" + suffix);
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(5);
+        product.setCategory(category);
+        product = productRepository.save(product);
+        // Saved past ProductService, so the ledger hasn't heard of it
+        ledger.updateLevel(product.getId(), product.getStockQuantity(), true);
+
+        User user = new User();
+        user.setFirebaseUid("hold-" + suffix);
+        user.setFirstName("Hold");
+        user.setLastName("Shopper");
+        user.setEmail("hold-" + suffix + "@example.com");
+        firebaseUid = userRepository.save(user).getFirebaseUid();
+
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(5);
+        cartService.addToCart(firebaseUid, request);
+    }
+
+    @Test
+    void holdIsReleasedWhenItsTransactionRollsBack() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            reservationService.holdCart(firebaseUid);
+            assertThat(ledger.getHold(firebaseUid)).isPresent();
+            status.setRollbackOnly();
+        });
+
+        assertThat(ledger.getHold(firebaseUid)).isEmpty();
+        assertThat(ledger.getAvailableToPromise(product.getId())).hasValue(5);
+    }
+
+    @Test
+    void committedHoldIsKept() {
+        reservationService.holdCart(firebaseUid);
+
+        assertThat(ledger.getHold(firebaseUid)).isPresent();
+        assertThat(ledger.getAvailableToPromise(product.getId())).hasValue(0);
+        reservationService.releaseHold(firebaseUid);
+    }
+}
@@ -0,0 +1,242 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many buyers checking out one product at once. Each checkout holds its stock row lock for a
+ * few milliseconds of other work before it commits, as order creation does, so buyers of an
+ * unsharded product queue on one row while buyers of a sharded one mostly lock different slots.
+ */
+@SpringBootTest
+@Slf4j
+class ShardedStockContentionTest {
+
+    private static final int BUYERS = 64;
+    private static final int SLOTS = 16;
+    private static final long CHECKOUT_WORK_MILLIS = 2;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Category category;
+
+    @BeforeEach
+    void createCategory() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        category = new Category();
+        category.setName("Contention " + suffix);
+        category.setSlug("contention-" + suffix);
+        category = categoryRepository.save(category);
+    }
+
+    @Test
+    void shardedStockSustainsMoreConcurrentCheckouts() throws Exception {
+        int checkouts = BUYERS * 10;
+        Product singleRow = createProduct(checkouts);
+        Product sharded = createProduct(checkouts);
+        shard(sharded.getId());
+
+        double singleRowRate = checkoutsPerSecond(singleRow.getId(), checkouts);
+        double shardedRate = checkoutsPerSecond(sharded.getId(), checkouts);
+        log.info("{} buyers: single row {} checkouts/s, {} slots {} checkouts/s",
+                BUYERS, Math.round(singleRowRate), SLOTS, Math.round(shardedRate));
+
+        assertThat(stockOf(singleRow.getId())).isZero();
+        assertThat(slotTotal(sharded.getId())).isZero();
+        assertThat(shardedRate).isGreaterThan(singleRowRate);
+    }
+
+    @Test
+    void shardedSellOutNeverOversells() throws Exception {
+        int stock = 100;
+        int attempts = BUYERS * 5;
+        Product product = createProduct(stock);
+        shard(product.getId());
+
+        int sold = checkout(product.getId(), attempts);
+        shardedStockService.reconcileAll();
+
+        assertThat(sold).isEqualTo(stock);
+        assertThat(slotTotal(product.getId())).isZero();
+        Product reconciled = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(reconciled.getStockQuantity()).isZero();
+        assertThat(reconciled.getStatus()).isEqualTo(Product.ProductStatus.OUT_OF_STOCK);
+    }
+
+    @Test
+    void resplittingDuringCheckoutsLosesNoSales() throws Exception {
+        int stock = BUYERS * 5;
+        Product product = createProduct(stock);
+        shard(product.getId());
+
+        AtomicBoolean selling = new AtomicBoolean(true);
+        Thread resplitter = new Thread(() -> {
+            for (int i = 0; selling.get(); i++) {
+                shard(product.getId(), 2 + i % (SLOTS - 1));
+            }
+        });
+        resplitter.start();
+        int sold;
+        try {
+            sold = checkout(product.getId(), stock / 2);
+        } finally {
+            selling.set(false);
+            resplitter.join();
+        }
+
+        assertThat(slotTotal(product.getId())).isEqualTo(stock - sold);
+    }
+
+    @Test
+    void shardingOnAnotherInstanceTakesEffectHere() {
+        Product product = createProduct(50);
+        ShardedStockService otherInstance = new ShardedStockService(jdbcTemplate, eventPublisher, transactionManager);
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> otherInstance.enable(product.getId(), SLOTS));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertThat(inventoryService.decrement(List.of(new StockLine(product.getId(), 3))).isSuccessful()).isTrue());
+        shardedStockService.reconcileAll();
+
+        assertThat(slotTotal(product.getId())).isEqualTo(47);
+        assertThat(stockOf(product.getId())).isEqualTo(47);
+
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> otherInstance.disable(product.getId()));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                inventoryService.increment(List.of(new StockLine(product.getId(), 3))));
+
+        assertThat(slotTotal(product.getId())).isZero();
+        assertThat(stockOf(product.getId())).isEqualTo(50);
+    }
+
+    private double checkoutsPerSecond(Long productId, int checkouts) throws Exception {
+        long startedAt = System.nanoTime();
+        int sold = checkout(productId, checkouts);
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        assertThat(sold).isEqualTo(checkouts);
+        return checkouts / seconds;
+    }
+
+    // Returns how many of the attempts bought a unit
+    private int checkout(Long productId, int attempts) throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger remaining = new AtomicInteger(attempts);
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService buyers = Executors.newFixedThreadPool(BUYERS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < BUYERS; i++) {
+                results.add(buyers.submit(() -> {
+                    start.await();
+                    while (remaining.getAndDecrement() > 0) {
+                        Boolean bought = transactionTemplate.execute(status -> {
+                            StockDecrementResult result = inventoryService.decrement(List.of(new StockLine(productId, 1)));
+                            if (!result.isSuccessful()) {
+                                status.setRollbackOnly();
+                                return false;
+                            }
+                            pause();
+                            return true;
+                        });
+                        if (Boolean.TRUE.equals(bought)) {
+                            sold.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            buyers.shutdownNow();
+        }
+        return sold.get();
+    }
+
+    private Product createProduct(int stock) {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Product product = new Product();
+        product.setName("Contended product " + suffix);
+        product.setSlug("contended-" + suffix);
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(stock);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+
+    private void shard(Long productId) {
+        shard(productId, SLOTS);
+    }
+
+    private void shard(Long productId, int slots) {
+        new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> shardedStockService.enable(productId, slots));
+    }
+
+    private int stockOf(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = :id",
+                Map.of("id", productId), Integer.class);
+    }
+
+    private int slotTotal(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM product_stock_shards " +
+                "WHERE product_id = :id", Map.of("id", productId), Integer.class);
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(CHECKOUT_WORK_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
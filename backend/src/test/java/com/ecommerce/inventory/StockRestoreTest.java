@@ -0,0 +1,27 @@
+package com.ecommerce.inventory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Restoring stock, as cancelling an order does, reports a line naming a missing product
+ * the way the rest of the service does.
+ */
+@SpringBootTest
+class StockRestoreTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Test
+    void restoringStockOfAnUnknownProductFails() {
+        assertThatThrownBy(() -> inventoryService.increment(List.of(new StockLine(Long.MAX_VALUE, 1))))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Product not found");
+    }
+}
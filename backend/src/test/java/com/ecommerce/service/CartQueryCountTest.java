@@ -0,0 +1,144 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.dto.response.CartResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A cart operation loads the cart with its items and products once, applies the change in
+ * memory and builds the response from the same graph, so its statement count doesn't grow
+ * with the number of lines in the cart.
+ */
+@SpringBootTest
+class CartQueryCountTest {
+
+    private static final int LINES = 5;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String firebaseUid;
+    private List<Product> products;
+
+    @BeforeEach
+    void createShopper() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Category category = new Category();
+        category.setName("Cart " + suffix);
+        category.setSlug("cart-" + suffix);
+        category = categoryRepository.save(category);
+
+        products = new ArrayList<>();
+        for (int i = 0; i <= LINES; i++) {
+            Product product = new Product();
+            product.setName("Cart product " + i);
+            product.setSlug("cart-" + suffix + "-" + i);
+            product.setPrice(BigDecimal.TEN);
+            product.setStockQuantity(100);
+            product.setCategory(category);
+            product.setImageUrls(List.of("https://example.com/" + i + "-a.png", "https://example.com/" + i + "-b.png"));
+            products.add(product);
+        }
+        products = productRepository.saveAll(products);
+
+        User user = new User();
+        user.setFirebaseUid("cart-" + suffix);
+        user.setFirstName("Cart");
+        user.setLastName("Shopper");
+        user.setEmail("cart-" + suffix + "@example.com");
+        firebaseUid = userRepository.save(user).getFirebaseUid();
+
+        // The first lines of the cart; this also caches the shopper's identity
+        for (int i = 0; i < LINES; i++) {
+            cartService.addToCart(firebaseUid, request(products.get(i), 1));
+        }
+    }
+
+    @Test
+    void addingToAnExistingLine() {
+        Statistics statistics = statistics();
+        CartResponse cart = cartService.addToCart(firebaseUid, request(products.get(0), 2));
+
+        assertThat(cart.getTotalItems()).isEqualTo(LINES + 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void updatingALine() {
+        Long cartItemId = cartService.getCart(firebaseUid).orElseThrow().getItems().get(0).getId();
+
+        Statistics statistics = statistics();
+        CartResponse cart = cartService.updateCartItem(firebaseUid, cartItemId, 4);
+
+        assertThat(cart.getTotalItems()).isEqualTo(LINES + 3);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+    }
+
+    @Test
+    void readingACartOfSeveralLines() {
+        Statistics statistics = statistics();
+        CartResponse cart = cartService.getCart(firebaseUid).orElseThrow();
+
+        assertThat(cart.getItems()).hasSize(LINES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void addingAndRemovingALine() {
+        Statistics statistics = statistics();
+        CartResponse added = cartService.addToCart(firebaseUid, request(products.get(LINES), 1));
+        Long cartItemId = added.getItems().stream()
+                .filter(item -> item.getProductId().equals(products.get(LINES).getId()))
+                .findFirst()
+                .orElseThrow()
+                .getId();
+        CartResponse cart = cartService.removeFromCart(firebaseUid, cartItemId);
+
+        assertThat(cart.getItems()).hasSize(LINES);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(9);
+    }
+
+    private static AddToCartRequest request(Product product, int quantity) {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(quantity);
+        return request;
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
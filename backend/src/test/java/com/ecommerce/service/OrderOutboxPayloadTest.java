@@ -0,0 +1,135 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.request.AddToCartRequest;
+import com.ecommerce.dto.request.CreateOrderRequest;
+import com.ecommerce.dto.response.OrderResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Order;
+import com.ecommerce.entity.Product;
+import com.ecommerce.entity.User;
+import com.ecommerce.outbox.OutboxEvents;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Order events in the outbox describe the order as it was committed, timestamps included.
+ */
+@SpringBootTest
+class OrderOutboxPayloadTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String firebaseUid;
+
+    @BeforeEach
+    void fillCart() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        Category category = new Category();
+        category.setName("Outbox " + suffix);
+        category.setSlug("outbox-" + suffix);
+        category = categoryRepository.save(category);
+
+        Product product = new Product();
+        product.setName("Outbox product " + suffix);
+        product.setSlug("outbox-" + suffix);
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(10);
+        product.setCategory(category);
+        product = productRepository.save(product);
+
+        User user = new User();
+        user.setFirebaseUid("outbox-" + suffix);
+        user.setFirstName("Outbox");
+        user.setLastName("Shopper");
+        user.setEmail("outbox-" + suffix + "@example.com");
+        firebaseUid = userRepository.save(user).getFirebaseUid();
+
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(2);
+        cartService.addToCart(firebaseUid, request);
+    }
+
+    @Test
+    void placedAndStatusChangedEventsCarryTimestamps() throws Exception {
+        OrderResponse placed = orderService.createOrder(firebaseUid, orderRequest());
+
+        assertThat(placed.getCreatedAt()).isNotNull();
+        JsonNode placedEvent = payload(placed.getId(), OutboxEvents.ORDER_PLACED);
+        assertThat(placedEvent.get("createdAt").isNull()).isFalse();
+        assertThat(placedEvent.get("updatedAt").isNull()).isFalse();
+
+        orderService.updateOrderStatus(placed.getId(), Order.OrderStatus.SHIPPED);
+
+        Order shipped = orderRepository.findById(placed.getId()).orElseThrow();
+        JsonNode shippedEvent = payload(placed.getId(), OutboxEvents.ORDER_STATUS_CHANGED);
+        assertThat(millis(objectMapper.treeToValue(shippedEvent.get("updatedAt"), LocalDateTime.class)))
+                .isEqualTo(millis(shipped.getUpdatedAt()));
+    }
+
+    private JsonNode payload(Long orderId, String eventType) throws Exception {
+        String payload = jdbcTemplate.queryForObject("SELECT payload FROM outbox_events " +
+                        "WHERE aggregate_type = :type AND aggregate_id = :id AND event_type = :event",
+                Map.of("type", OutboxEvents.ORDER, "id", orderId, "event", eventType), String.class);
+        return objectMapper.readTree(payload);
+    }
+
+    private static CreateOrderRequest orderRequest() {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setPaymentMethod(Order.PaymentMethod.CREDIT_CARD);
+        request.setShippingStreet("1 Test Street");
+        request.setShippingCity("Testville");
+        request.setShippingState("TS");
+        request.setShippingCountry("US");
+        request.setShippingPostalCode("00001");
+        request.setBillingStreet("1 Test Street");
+        request.setBillingCity("Testville");
+        request.setBillingState("TS");
+        request.setBillingCountry("US");
+        request.setBillingPostalCode("00001");
+        return request;
+    }
+
+    private static LocalDateTime millis(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.MILLIS);
+    }
+}
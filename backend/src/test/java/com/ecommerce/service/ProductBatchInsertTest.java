@@ -0,0 +1,105 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Products take their ids from pooled blocks, so Hibernate can hold their inserts until flush
+ * and send them as JDBC batches: one statement per table, however many products are saved.
+ */
+@SpringBootTest
+class ProductBatchInsertTest {
+
+    private static final int PRODUCTS = 40;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Category category;
+    private String suffix;
+
+    @BeforeEach
+    void createCategory() {
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+        category = new Category();
+        category.setName("Batch " + suffix);
+        category.setSlug("batch-" + suffix);
+        category = categoryRepository.save(category);
+    }
+
+    @Test
+    void savingManyProductsSendsOneStatementPerTable() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = product("Batch product " + i, "batch-" + suffix + "-" + i);
+            product.setImageUrls(List.of("https://example.com/" + i + ".png"));
+            product.setTags(List.of("batch"));
+            products.add(product);
+        }
+        // Takes this test's block of ids up front, so only the inserts are counted
+        productRepository.save(product("Batch warm-up", "batch-" + suffix + "-warm-up"));
+
+        Statistics statistics = statistics();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> productRepository.saveAll(products));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(PRODUCTS);
+        // products, product_images and product_tags
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void createdProductCarriesItsTimestamps() {
+        ProductResponse created = productService.createProduct(product("Batch created " + suffix, null));
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getCreatedAt()).isNotNull();
+        assertThat(created.getUpdatedAt()).isNotNull();
+    }
+
+    private Product product(String name, String slug) {
+        Product product = new Product();
+        product.setName(name);
+        product.setSlug(slug);
+        product.setPrice(BigDecimal.TEN);
+        product.setStockQuantity(10);
+        product.setCategory(category);
+        return product;
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,104 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.response.ProductResponse;
+import com.ecommerce.entity.Category;
+import com.ecommerce.entity.Product;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A listing page costs the page query, its count, and one query each for the images and tags
+ * of the whole page, however many products it holds.
+ */
+@SpringBootTest
+class ProductListingQueryCountTest {
+
+    private static final int PRODUCTS = 30;
+    private static final long STATEMENTS_PER_PAGE = 4;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Category category;
+
+    @BeforeEach
+    void createCatalog() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        category = new Category();
+        category.setName("Listing " + suffix);
+        category.setSlug("listing-" + suffix);
+        category = categoryRepository.save(category);
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Listing product " + i);
+            product.setSlug("listing-" + suffix + "-" + i);
+            product.setPrice(BigDecimal.TEN);
+            product.setStockQuantity(10);
+            product.setCategory(category);
+            product.setImageUrls(List.of("https://example.com/" + i + "-a.png", "https://example.com/" + i + "-b.png"));
+            product.setTags(List.of("tag-" + i, "listing"));
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    void categoryPageUsesConstantNumberOfStatements() {
+        for (int size : new int[]{5, 20}) {
+            Statistics statistics = statistics();
+            Page<ProductResponse> page = productService.getProductsByCategory(category.getId(), 0, size);
+
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(page.getTotalElements()).isEqualTo(PRODUCTS);
+            assertThat(page.getContent()).allSatisfy(product -> {
+                assertThat(product.getImageUrls()).hasSize(2);
+                assertThat(product.getTags()).hasSize(2);
+                assertThat(product.getCategory().getId()).isEqualTo(category.getId());
+            });
+            assertThat(statistics.getPrepareStatementCount())
+                    .as("statements for a page of %d products", size)
+                    .isEqualTo(STATEMENTS_PER_PAGE);
+        }
+    }
+
+    @Test
+    void productPageUsesConstantNumberOfStatements() {
+        Statistics statistics = statistics();
+        Page<ProductResponse> page = productService.getAllProducts(0, 20, "id", "asc");
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(STATEMENTS_PER_PAGE);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}